@@ -2,6 +2,7 @@ plugins {
     id("java")
     id("org.jetbrains.kotlin.jvm") version "1.9.21"
     id("org.jetbrains.intellij") version "1.16.1"
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 group = "org.dasxunya"
@@ -55,6 +56,50 @@ tasks {
     test {
         useJUnitPlatform()
     }
+
+    // Headless generation over a source tree for CI:
+    // ./gradlew generateTests -PsourceRoot=src/main/java -PoutputRoot=build/generated-tests [-PtestType=UNIT|BENCHMARK] [-PcsvFileRows=100]
+    //     [-Ptimeout=ANNOTATION|PREEMPTIVE] [-PtimeoutMillis=500] [-PallocationBytes=1048576]
+    //     [-Pcoverage=build/reports/jacoco/test/jacocoTestReport.xml] [-PcoverageThreshold=0.8]
+    //     [-Pjdk=/path/to/jdk] [-Pclasspath=lib/a.jar:build/classes/java/main]
+    register<org.jetbrains.intellij.tasks.RunIdeTask>("generateTests") {
+        val sourceRoot = project.findProperty("sourceRoot")?.toString() ?: "src/main/java"
+        val outputRoot = project.findProperty("outputRoot")?.toString() ?: "build/generated-tests"
+        val testType = project.findProperty("testType")?.toString() ?: "PARAMETERIZED"
+        val csvFileRows = project.findProperty("csvFileRows")?.toString() ?: "0"
+        val timeout = project.findProperty("timeout")?.toString() ?: "NONE"
+        val timeoutMillis = project.findProperty("timeoutMillis")?.toString() ?: "1000"
+        val allocationBytes = project.findProperty("allocationBytes")?.toString() ?: "0"
+        val coverage = project.findProperty("coverage")?.toString()
+        val coverageThreshold = project.findProperty("coverageThreshold")?.toString() ?: "0.8"
+        val jdk = project.findProperty("jdk")?.toString()
+        val classpath = project.findProperty("classpath")?.toString()
+        args = listOf(
+            "generateTests",
+            file(sourceRoot).absolutePath,
+            file(outputRoot).absolutePath,
+            "--type", testType,
+            "--csvFileRows", csvFileRows,
+            "--timeout", timeout,
+            "--timeoutMillis", timeoutMillis,
+            "--allocationBytes", allocationBytes
+        ) + (if (coverage != null) listOf("--coverage", file(coverage).absolutePath, "--coverageThreshold", coverageThreshold) else emptyList()) +
+            (if (jdk != null) listOf("--jdk", file(jdk).absolutePath) else emptyList()) +
+            (if (classpath != null) listOf("--classpath", classpath.split(File.pathSeparator).joinToString(File.pathSeparator) { file(it).absolutePath }) else emptyList())
+        jvmArgs = listOf("-Djava.awt.headless=true")
+    }
+}
+
+// Benchmarks of the generator hot paths: ./gradlew jmh
+// Results (ops/s and gc.alloc.rate.norm) are written to build/results/jmh/results.json
+jmh {
+    // Reuse IntelliJ platform and Mockito from the test classpath
+    includeTests.set(true)
+    profilers.set(listOf("gc"))
+    fork.set(1)
+    warmupIterations.set(3)
+    iterations.set(5)
+    resultFormat.set("JSON")
 }
 
 sourceSets {
@@ -0,0 +1,40 @@
+package org.dasxunya.diploma.generator;
+
+import com.intellij.psi.PsiClass;
+import org.dasxunya.diploma.constants.TestType;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк генерации тестирующего класса целиком для синтетических классов разного размера
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ClassGenerationBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int methodCount;
+
+    //region Поля
+    private UnitTestsGenerator generator;
+    private PsiClass psiClass;
+    //endregion
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.generator = new UnitTestsGenerator(false);
+        this.psiClass = FakePsi.syntheticClass(this.methodCount);
+    }
+
+    @Benchmark
+    public String generateParameterized() {
+        return this.generator.generate(this.psiClass, TestType.PARAMETERIZED);
+    }
+
+    @Benchmark
+    public String generateUnit() {
+        return this.generator.generate(this.psiClass, TestType.UNIT);
+    }
+}
@@ -0,0 +1,129 @@
+package org.dasxunya.diploma.generator;
+
+import com.intellij.psi.*;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Легковесные заглушки PSI для бенчмарков.
+ * Интерфейсы реализуются через {@link Proxy}, чтобы накладные расходы заглушек
+ * не искажали замеры генератора. Mockito используется только для ссылочных типов,
+ * которые нельзя создать без запущенной IDE.
+ */
+final class FakePsi {
+
+    //region Типы
+    @SuppressWarnings({"UnstableApiUsage", "deprecation"})
+    static final PsiType[] PRIMITIVE_TYPES = {
+            PsiType.INT, PsiType.BOOLEAN, PsiType.BYTE, PsiType.CHAR,
+            PsiType.SHORT, PsiType.LONG, PsiType.FLOAT, PsiType.DOUBLE
+    };
+    static final PsiType STRING = referenceType("String", "java.lang.String");
+    static final PsiType LIST = referenceType("List<String>", "java.util.List<java.lang.String>");
+    //endregion
+
+    private FakePsi() {
+    }
+
+    static PsiType referenceType(String presentableText, String canonicalText) {
+        PsiType type = mock(PsiType.class);
+        when(type.getPresentableText()).thenReturn(presentableText);
+        when(type.getCanonicalText()).thenReturn(canonicalText);
+        return type;
+    }
+
+    static PsiParameter parameter(PsiType type, String name) {
+        return proxy(PsiParameter.class, (proxy, method, args) -> switch (method.getName()) {
+            case "getType" -> type;
+            case "getName" -> name;
+            default -> defaultValue(proxy, method.getName(), args);
+        });
+    }
+
+    static PsiMethod method(PsiType returnType, String name, PsiParameter... parameters) {
+        PsiParameterList parameterList = proxy(PsiParameterList.class, (proxy, method, args) -> switch (method.getName()) {
+            case "getParameters" -> parameters;
+            case "getParametersCount" -> parameters.length;
+            case "isEmpty" -> parameters.length == 0;
+            default -> defaultValue(proxy, method.getName(), args);
+        });
+        return proxy(PsiMethod.class, (proxy, method, args) -> switch (method.getName()) {
+            case "getName" -> name;
+            case "getReturnType" -> returnType;
+            case "getParameterList" -> parameterList;
+            case "isConstructor" -> returnType == null;
+            default -> defaultValue(proxy, method.getName(), args);
+        });
+    }
+
+    static PsiClass psiClass(String name, String packageName, PsiMethod constructor, PsiMethod[] methods) {
+        PsiJavaFile psiFile = proxy(PsiJavaFile.class, (proxy, method, args) -> switch (method.getName()) {
+            case "getPackageName" -> packageName;
+            default -> defaultValue(proxy, method.getName(), args);
+        });
+        PsiMethod[] constructors = {constructor};
+        return proxy(PsiClass.class, (proxy, method, args) -> switch (method.getName()) {
+            case "getName" -> name;
+            case "getQualifiedName" -> packageName + "." + name;
+            case "getContainingFile" -> psiFile;
+            case "getMethods" -> methods;
+            case "getConstructors" -> constructors;
+            case "getFields" -> PsiField.EMPTY_ARRAY;
+            default -> defaultValue(proxy, method.getName(), args);
+        });
+    }
+
+    /**
+     * Параметры всех поддерживаемых типов, как в {@code BaseTest}
+     */
+    static PsiParameter[] allTypesParameters() {
+        return new PsiParameter[]{
+                parameter(STRING, "str"), parameter(PRIMITIVE_TYPES[0], "i"), parameter(PRIMITIVE_TYPES[1], "flag"),
+                parameter(PRIMITIVE_TYPES[2], "b"), parameter(PRIMITIVE_TYPES[3], "c"), parameter(PRIMITIVE_TYPES[4], "s"),
+                parameter(PRIMITIVE_TYPES[5], "l"), parameter(PRIMITIVE_TYPES[6], "f"), parameter(PRIMITIVE_TYPES[7], "d")
+        };
+    }
+
+    /**
+     * Синтетический класс с заданным числом методов, возвращающих значения всех поддерживаемых типов
+     */
+    @SuppressWarnings({"UnstableApiUsage", "deprecation"})
+    static PsiClass syntheticClass(int methodCount) {
+        PsiParameter[] parameters = allTypesParameters();
+        PsiType[] returnTypes = new PsiType[PRIMITIVE_TYPES.length + 3];
+        System.arraycopy(PRIMITIVE_TYPES, 0, returnTypes, 0, PRIMITIVE_TYPES.length);
+        returnTypes[PRIMITIVE_TYPES.length] = PsiType.VOID;
+        returnTypes[PRIMITIVE_TYPES.length + 1] = STRING;
+        returnTypes[PRIMITIVE_TYPES.length + 2] = LIST;
+
+        PsiMethod[] methods = new PsiMethod[methodCount];
+        for (int i = 0; i < methodCount; i++) {
+            // Каждый третий метод без параметров, чтобы покрыть ветку юнит теста
+            PsiParameter[] methodParameters = i % 3 == 0 ? new PsiParameter[0] : parameters;
+            methods[i] = method(returnTypes[i % returnTypes.length], "method" + i, methodParameters);
+        }
+        PsiMethod constructor = method(null, "Synthetic",
+                parameter(STRING, "brand"), parameter(STRING, "model"), parameter(PRIMITIVE_TYPES[0], "year"), parameter(PRIMITIVE_TYPES[7], "price"));
+        return psiClass("Synthetic", "org.dasxunya.diploma.generator.benchmark", constructor, methods);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(FakePsi.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private static Object defaultValue(Object proxy, String methodName, Object[] args) {
+        return switch (methodName) {
+            case "hashCode" -> System.identityHashCode(proxy);
+            case "equals" -> proxy == args[0];
+            case "toString" -> "FakePsi";
+            case "isValid" -> true;
+            case "hasModifierProperty" -> false;
+            default -> null;
+        };
+    }
+}
@@ -0,0 +1,64 @@
+package org.dasxunya.diploma.generator;
+
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiMethod;
+import com.intellij.psi.PsiType;
+import org.dasxunya.diploma.constants.TestType;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарки отдельных шагов генерации для одного метода
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class GeneratorHotPathsBenchmark {
+
+    //region Поля
+    private UnitTestsGenerator generator;
+    private PsiType[] types;
+    private PsiMethod method;
+    private PsiClass psiClass;
+    //endregion
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.generator = new UnitTestsGenerator(false);
+        this.types = new PsiType[FakePsi.PRIMITIVE_TYPES.length + 2];
+        System.arraycopy(FakePsi.PRIMITIVE_TYPES, 0, this.types, 0, FakePsi.PRIMITIVE_TYPES.length);
+        this.types[FakePsi.PRIMITIVE_TYPES.length] = FakePsi.STRING;
+        this.types[FakePsi.PRIMITIVE_TYPES.length + 1] = FakePsi.LIST;
+        this.method = FakePsi.method(FakePsi.PRIMITIVE_TYPES[1], "returnMethod", FakePsi.allTypesParameters());
+        this.psiClass = FakePsi.syntheticClass(1);
+    }
+
+    @Benchmark
+    public void generateExampleData(Blackhole blackhole) {
+        for (PsiType type : this.types)
+            blackhole.consume(this.generator.generateExampleData(type));
+    }
+
+    @Benchmark
+    public void generateTypeAssert(Blackhole blackhole) {
+        for (PsiType type : this.types)
+            blackhole.consume(this.generator.generateTypeAssert(type, "car.returnMethod(str, i)"));
+    }
+
+    @Benchmark
+    public String getMethodCallString() {
+        return this.generator.getMethodCallString(this.method);
+    }
+
+    @Benchmark
+    public String getClassHeader() {
+        return this.generator.getClassHeader(this.psiClass, TestType.PARAMETERIZED);
+    }
+
+    @Benchmark
+    public String generateMethod() {
+        return this.generator.generate("car.", this.method, TestType.PARAMETERIZED);
+    }
+}
@@ -0,0 +1,15 @@
+package org.dasxunya.diploma;
+
+import org.dasxunya.diploma.constants.TestType;
+
+/**
+ * Генерация класса бенчмарков JMH для выбранного класса или метода.
+ * Поиск элемента, отложенный запуск во время индексации и запись файла совпадают с генерацией тестов.
+ */
+public class BenchmarkPlugin extends UnitTestsPlugin {
+
+    @Override
+    protected TestType getTestType() {
+        return TestType.BENCHMARK;
+    }
+}
@@ -0,0 +1,190 @@
+package org.dasxunya.diploma;
+
+import com.intellij.concurrency.JobLauncher;
+import com.intellij.openapi.actionSystem.ActionUpdateThread;
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.CommonDataKeys;
+import com.intellij.openapi.actionSystem.LangDataKeys;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.Messages;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiElement;
+import org.dasxunya.diploma.constants.TestType;
+import org.dasxunya.diploma.generator.CoverageReport;
+import org.dasxunya.diploma.generator.GenerationResult;
+import org.dasxunya.diploma.generator.PsiClassCollector;
+import org.dasxunya.diploma.generator.UnitTestsGenerator;
+import org.dasxunya.diploma.generator.templates.TestTemplates;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * Пакетная генерация тестов для всех классов выбранных в дереве проекта
+ * пакетов, директорий, модулей и файлов.
+ * Классы обрабатываются параллельно, все файлы записываются одним действием записи.
+ * Если в проекте сформирован XML отчет JaCoCo, тесты генерируются только для недостаточно покрытых методов,
+ * начиная с классов с наибольшим числом непокрытых инструкций.
+ *
+ * @see CoverageReport#find(Path)
+ */
+public class BulkUnitTestsPlugin extends AnAction {
+
+    //region Методы
+    /**
+     * Генератор создается на каждый запуск: шаблоны проекта и кэш типов действуют в пределах одной генерации
+     */
+    private UnitTestsGenerator createGenerator(Project project) {
+        UnitTestsGenerator generator = new UnitTestsGenerator(false);
+        generator.setTemplates(TestTemplates.forProject(project));
+        return generator;
+    }
+
+    /**
+     * Отчет о покрытии проекта, null - отчет не сформирован
+     */
+    private CoverageReport loadCoverageReport(Project project) {
+        String basePath = project.getBasePath();
+        Path path = basePath != null ? CoverageReport.find(Path.of(basePath)) : null;
+        if (path == null) return null;
+        try {
+            return CoverageReport.load(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void showMessage(Project project, String message) {
+        Messages.showMessageDialog(project, message,
+                "Attention!", Messages.getWarningIcon());
+    }
+
+    private List<PsiClass> collectClasses(Project project, PsiElement[] psiElements, VirtualFile[] virtualFiles, Module module) {
+        PsiClassCollector collector = new PsiClassCollector(project);
+        if (psiElements != null) {
+            for (PsiElement psiElement : psiElements)
+                collector.add(psiElement);
+        }
+        if (virtualFiles != null) {
+            for (VirtualFile virtualFile : virtualFiles)
+                collector.add(virtualFile);
+        }
+        if (module != null)
+            collector.add(module);
+        return collector.getClasses();
+    }
+
+    private void runInBackground(Project project, PsiElement[] psiElements, VirtualFile[] virtualFiles, Module module, TestType testType) {
+        ProgressManager.getInstance().run(new Task.Backgroundable(project, "Пакетная генерация тестов", true) {
+            private final List<GenerationResult> results = new ArrayList<>();
+            private UnitTestsGenerator generator;
+
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                this.generator = createGenerator(project);
+                indicator.setIndeterminate(true);
+                indicator.setText("Чтение отчета о покрытии");
+                CoverageReport coverageReport = loadCoverageReport(project);
+                this.generator.setCoverageReport(coverageReport);
+
+                //region Поиск классов
+                indicator.setText("Поиск классов");
+                List<PsiClass> classes = ReadAction.nonBlocking(() -> {
+                            List<PsiClass> collected = collectClasses(project, psiElements, virtualFiles, module);
+                            if (coverageReport != null) {
+                                // Сначала классы с наибольшим числом непокрытых инструкций
+                                Map<PsiClass, Long> missed = new HashMap<>();
+                                for (PsiClass psiClass : collected)
+                                    missed.put(psiClass, coverageReport.getMissedInstructions(psiClass.getQualifiedName()));
+                                collected.sort(Comparator.comparingLong((PsiClass psiClass) -> missed.get(psiClass)).reversed());
+                            }
+                            return collected;
+                        })
+                        .wrapProgress(indicator)
+                        .expireWith(project)
+                        .executeSynchronously();
+                //endregion
+
+                //region Параллельная генерация
+                indicator.setIndeterminate(false);
+                indicator.setText(String.format("Генерация тестов для %d классов", classes.size()));
+                GenerationResult[] prepared = new GenerationResult[classes.size()];
+                AtomicInteger processed = new AtomicInteger();
+                List<Integer> indices = IntStream.range(0, classes.size()).boxed().toList();
+                boolean isCompleted = JobLauncher.getInstance().invokeConcurrentlyUnderProgress(indices, indicator, index -> {
+                    PsiClass psiClass = classes.get(index);
+                    prepared[index] = ReadAction.nonBlocking(() -> psiClass.isValid()
+                                    ? this.generator.prepare(psiClass, psiClass.getContainingFile().getContainingDirectory(), testType)
+                                    : null)
+                            .expireWith(project)
+                            .executeSynchronously();
+                    indicator.setFraction((double) processed.incrementAndGet() / classes.size());
+                    return true;
+                });
+                if (!isCompleted) throw new ProcessCanceledException();
+                //endregion
+
+                for (GenerationResult result : prepared) {
+                    if (result != null) this.results.add(result);
+                }
+            }
+
+            @Override
+            public void onSuccess() {
+                if (!this.results.isEmpty() && !project.isDisposed())
+                    this.generator.write(project, this.results);
+            }
+
+            @Override
+            public void onThrowable(@NotNull Throwable error) {
+                showMessage(project, error.getMessage());
+            }
+        });
+    }
+    //endregion
+
+    @Override
+    public void actionPerformed(@NotNull AnActionEvent anActionEvent) {
+        Project project = anActionEvent.getProject();
+        if (project == null) return;
+        PsiElement[] psiElements = anActionEvent.getData(LangDataKeys.PSI_ELEMENT_ARRAY);
+        VirtualFile[] virtualFiles = anActionEvent.getData(CommonDataKeys.VIRTUAL_FILE_ARRAY);
+        Module module = anActionEvent.getData(LangDataKeys.MODULE_CONTEXT);
+        this.runInBackground(project, psiElements, virtualFiles, module, TestType.PARAMETERIZED);
+    }
+
+    @Override
+    public @NotNull ActionUpdateThread getActionUpdateThread() {
+        return ActionUpdateThread.BGT;
+    }
+
+    @Override
+    public void update(@NotNull AnActionEvent anActionEvent) {
+        boolean hasSelection = anActionEvent.getData(LangDataKeys.PSI_ELEMENT_ARRAY) != null
+                               || anActionEvent.getData(CommonDataKeys.VIRTUAL_FILE_ARRAY) != null
+                               || anActionEvent.getData(LangDataKeys.MODULE_CONTEXT) != null;
+        anActionEvent.getPresentation().setEnabledAndVisible(anActionEvent.getProject() != null && hasSelection);
+    }
+
+    @Override
+    public boolean isDumbAware() {
+        return false;
+    }
+}
@@ -0,0 +1,44 @@
+package org.dasxunya.diploma;
+
+import com.intellij.openapi.components.Service;
+import com.intellij.openapi.project.Project;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Очередь запросов на генерацию, поступивших во время индексации проекта.
+ * Запросы выполняются одним пакетом, как только индексы будут готовы.
+ */
+@Service(Service.Level.PROJECT)
+public final class GenerationQueue {
+
+    //region Поля
+    private final List<GenerationRequest> requests = new ArrayList<>();
+    //endregion
+
+    public static GenerationQueue getInstance(Project project) {
+        return project.getService(GenerationQueue.class);
+    }
+
+    //region Методы
+    /**
+     * Добавляет запрос в очередь
+     *
+     * @return true, если очередь была пуста и ее выполнение нужно запланировать
+     */
+    public synchronized boolean add(GenerationRequest request) {
+        this.requests.add(request);
+        return this.requests.size() == 1;
+    }
+
+    /**
+     * Забирает все накопленные запросы, очищая очередь
+     */
+    public synchronized List<GenerationRequest> drain() {
+        List<GenerationRequest> drained = List.copyOf(this.requests);
+        this.requests.clear();
+        return drained;
+    }
+    //endregion
+}
@@ -0,0 +1,43 @@
+package org.dasxunya.diploma;
+
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiDirectory;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiMethod;
+import com.intellij.psi.SmartPointerManager;
+import com.intellij.psi.SmartPsiElementPointer;
+import org.dasxunya.diploma.constants.TestType;
+
+/**
+ * Запрос на генерацию тестов, который может ожидать окончания индексации.
+ * Элементы хранятся через умные указатели. Во время индексации снимаются только имя элемента и число методов:
+ * для них не нужны индексы, и они используются лишь в тексте прогресса и в сообщении о пропущенных элементах.
+ * Модель класса строится в {@code prepare()} уже после индексации по актуальному PSI, так как типам параметров
+ * нужно разрешение, а код мог измениться, пока запрос ждал в очереди.
+ *
+ * @param element     Класс или метод, для которого генерируются тесты
+ * @param directory   Директория, в которую будет записан файл
+ * @param testType    Тип теста
+ * @param elementName Имя класса или метода
+ * @param methodCount Число методов элемента на момент создания запроса
+ */
+public record GenerationRequest(SmartPsiElementPointer<PsiElement> element, SmartPsiElementPointer<PsiDirectory> directory,
+                                TestType testType, String elementName, int methodCount) {
+
+    /**
+     * Создает запрос. Должен вызываться под действием чтения, доступен во время индексации.
+     */
+    public static GenerationRequest create(PsiElement element, PsiDirectory directory, TestType testType) {
+        String elementName = null;
+        int methodCount = 0;
+        if (element instanceof PsiClass psiClass) {
+            elementName = psiClass.getName();
+            methodCount = psiClass.getMethods().length;
+        } else if (element instanceof PsiMethod psiMethod) {
+            elementName = psiMethod.getName();
+            methodCount = 1;
+        }
+        return new GenerationRequest(SmartPointerManager.createPointer(element), SmartPointerManager.createPointer(directory),
+                testType, elementName, methodCount);
+    }
+}
@@ -0,0 +1,172 @@
+package org.dasxunya.diploma;
+
+import com.intellij.ide.impl.ProjectUtil;
+import com.intellij.lang.java.JavaLanguage;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.WriteAction;
+import com.intellij.openapi.module.JavaModuleType;
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.module.ModuleManager;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.project.ProjectManager;
+import com.intellij.openapi.projectRoots.JavaSdk;
+import com.intellij.openapi.projectRoots.ProjectJdkTable;
+import com.intellij.openapi.projectRoots.Sdk;
+import com.intellij.openapi.roots.ModifiableRootModel;
+import com.intellij.openapi.roots.ModuleRootManager;
+import com.intellij.openapi.roots.OrderRootType;
+import com.intellij.openapi.roots.ProjectRootManager;
+import com.intellij.openapi.roots.libraries.Library;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.vfs.LocalFileSystem;
+import com.intellij.openapi.vfs.VfsUtil;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiFileFactory;
+import com.intellij.psi.PsiManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Проект, в котором генерация без интерфейса IDE разбирает исходные файлы.
+ * <p>
+ * Во временной директории открывается пустой проект, исходная директория становится корнем исходного кода
+ * его модуля, проекту назначается JDK, а записи classpath подключаются библиотеками модуля. Так типы JDK
+ * ({@code java.lang.Integer}, {@code List<...>}), библиотек и собственные перечисления и записи проекта
+ * разрешаются так же, как в IDE. Если проект открыть не удалось, выводится предупреждение и файлы разбираются
+ * в проекте по умолчанию: в нем разрешаются только классы самого разбираемого файла, поэтому часть типов
+ * получает категорию и тестовые данные по умолчанию, и результат может отличаться от генерации в IDE.
+ */
+final class HeadlessProject implements AutoCloseable {
+
+    //region Поля
+    private static final String JDK_NAME = "generateTests JDK";
+    private static final String MODULE_NAME = "sources.iml";
+    private final Project project;
+    private final Path projectDirectory;
+    private final Sdk jdk;
+    //endregion
+
+    //region Конструкторы
+    private HeadlessProject(Project project, Path projectDirectory, Sdk jdk) {
+        this.project = project;
+        this.projectDirectory = projectDirectory;
+        this.jdk = jdk;
+    }
+    //endregion
+
+    //region Методы
+
+    /**
+     * Открывает проект с исходной директорией, JDK и classpath, при неудаче - проект по умолчанию
+     *
+     * @param sourceRoot Исходная директория
+     * @param jdkHome    Домашняя директория JDK
+     * @param classpath  Jar-файлы и директории классов, от которых зависят исходники
+     */
+    static HeadlessProject open(Path sourceRoot, Path jdkHome, List<Path> classpath) {
+        Path projectDirectory = null;
+        Project project = null;
+        Sdk jdk = null;
+        try {
+            projectDirectory = Files.createTempDirectory("generateTests");
+            project = ProjectUtil.openOrImport(projectDirectory, null, false);
+            if (project == null) throw new IllegalStateException("проект не открыт");
+            jdk = createJdk(jdkHome);
+            configure(project, projectDirectory, sourceRoot, jdk, classpath);
+            DumbService.getInstance(project).waitForSmartMode();
+            return new HeadlessProject(project, projectDirectory, jdk);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Предупреждение: не удалось открыть проект для " + sourceRoot + " (" + e.getMessage() + "). "
+                               + "Файлы разбираются в проекте по умолчанию без JDK и classpath: типы JDK, библиотек и других "
+                               + "файлов проекта не разрешаются, результат может отличаться от генерации в IDE");
+            if (jdk != null) removeJdk(jdk);
+            if (project != null) closeProject(project);
+            if (projectDirectory != null) FileUtil.delete(projectDirectory.toFile());
+            return new HeadlessProject(ProjectManager.getInstance().getDefaultProject(), null, null);
+        }
+    }
+
+    /**
+     * JDK для разрешения типов, null - домашняя директория не является JDK
+     */
+    private static Sdk createJdk(Path jdkHome) {
+        JavaSdk javaSdk = JavaSdk.getInstance();
+        if (!javaSdk.isValidSdkHome(jdkHome.toString())) {
+            System.err.println("Предупреждение: " + jdkHome + " не является JDK, типы JDK не разрешаются. Укажите --jdk <home>");
+            return null;
+        }
+        return javaSdk.createJdk(JDK_NAME, jdkHome.toString(), false);
+    }
+
+    private static void configure(Project project, Path projectDirectory, Path sourceRoot, Sdk jdk, List<Path> classpath) {
+        VirtualFile sourceDirectory = LocalFileSystem.getInstance().refreshAndFindFileByNioFile(sourceRoot.toAbsolutePath());
+        if (sourceDirectory == null) throw new IllegalStateException("исходная директория не найдена в VFS");
+        WriteAction.runAndWait(() -> {
+            if (jdk != null) {
+                ProjectJdkTable.getInstance().addJdk(jdk);
+                ProjectRootManager.getInstance(project).setProjectSdk(jdk);
+            }
+            Module module = ModuleManager.getInstance(project)
+                    .newModule(projectDirectory.resolve(MODULE_NAME), JavaModuleType.getModuleType().getId());
+            ModifiableRootModel model = ModuleRootManager.getInstance(module).getModifiableModel();
+            model.inheritSdk();
+            model.addContentEntry(sourceDirectory).addSourceFolder(sourceDirectory, false);
+            for (Path entry : classpath) {
+                Library.ModifiableModel library = model.getModuleLibraryTable().createLibrary().getModifiableModel();
+                library.addRoot(VfsUtil.getUrlForLibraryRoot(entry.toAbsolutePath().toFile()), OrderRootType.CLASSES);
+                library.commit();
+            }
+            model.commit();
+        });
+    }
+
+    /**
+     * Открыт ли проект с исходной директорией, false - используется проект по умолчанию
+     */
+    boolean isConfigured() {
+        return this.projectDirectory != null;
+    }
+
+    /**
+     * Файл исходной директории в проекте. Вызывается под действием чтения.
+     *
+     * @param file Путь к файлу
+     * @param text Текст файла, по которому файл разбирается в проекте по умолчанию
+     */
+    PsiFile findFile(Path file, String text) {
+        if (this.isConfigured()) {
+            VirtualFile virtualFile = LocalFileSystem.getInstance().findFileByNioFile(file.toAbsolutePath());
+            PsiFile psiFile = virtualFile != null ? PsiManager.getInstance(this.project).findFile(virtualFile) : null;
+            if (psiFile != null) return psiFile;
+        }
+        return PsiFileFactory.getInstance(this.project)
+                .createFileFromText(file.getFileName().toString(), JavaLanguage.INSTANCE, text);
+    }
+
+    /**
+     * Закрывает проект, удаляет его директорию и зарегистрированный JDK
+     */
+    @Override
+    public void close() {
+        if (!this.isConfigured()) return;
+        if (this.jdk != null) removeJdk(this.jdk);
+        closeProject(this.project);
+        FileUtil.delete(this.projectDirectory.toFile());
+    }
+
+    private static void removeJdk(Sdk jdk) {
+        WriteAction.runAndWait(() -> {
+            if (ProjectJdkTable.getInstance().findJdk(jdk.getName()) != null) ProjectJdkTable.getInstance().removeJdk(jdk);
+        });
+    }
+
+    private static void closeProject(Project project) {
+        ApplicationManager.getApplication().invokeAndWait(() -> ProjectManager.getInstance().closeAndDispose(project));
+    }
+    //endregion
+}
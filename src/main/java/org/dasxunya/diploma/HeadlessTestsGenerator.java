@@ -0,0 +1,371 @@
+package org.dasxunya.diploma;
+
+import com.intellij.openapi.application.ApplicationStarter;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiJavaFile;
+import org.dasxunya.diploma.constants.Constants;
+import org.dasxunya.diploma.constants.TestType;
+import org.dasxunya.diploma.constants.TimeoutMode;
+import org.dasxunya.diploma.generator.CodeWriter;
+import org.dasxunya.diploma.generator.CoverageReport;
+import org.dasxunya.diploma.generator.GenerationMetrics;
+import org.dasxunya.diploma.generator.JunitPlatformProperties;
+import org.dasxunya.diploma.generator.TestDataFiles;
+import org.dasxunya.diploma.generator.UnitTestsGenerator;
+import org.dasxunya.diploma.generator.model.ClassModel;
+import org.dasxunya.diploma.generator.templates.TestTemplates;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Генерация тестов без интерфейса IDE для CI:
+ * <pre>
+ * idea generateTests &lt;sourceRoot&gt; &lt;outputRoot&gt; [--type UNIT|PARAMETERIZED|BENCHMARK] [--templates &lt;dir&gt;] [--threads N] [--overwrite]
+ *                    [--csvFileRows N] [--resources &lt;dir&gt;] [--timeout NONE|ANNOTATION|PREEMPTIVE] [--timeoutMillis N]
+ *                    [--allocationBytes N] [--coverage &lt;jacoco.xml&gt;] [--coverageThreshold 0.8] [--jdk &lt;home&gt;] [--classpath &lt;paths&gt;]
+ * </pre>
+ * Java-файлы исходной директории разбираются параллельно во временном проекте, в котором исходная директория
+ * зарегистрирована корнем исходного кода, назначен JDK {@code --jdk} (по умолчанию JDK, в котором запущена IDE)
+ * и подключены библиотеки {@code --classpath}, поэтому типы разрешаются так же, как в IDE. Если проект открыть
+ * не удалось, при запуске выводится предупреждение и файлы разбираются в проекте по умолчанию без JDK и classpath
+ * (см. {@link HeadlessProject}). Тестирующие классы записываются в выходную директорию по пакетам напрямую через NIO.
+ * Существующие файлы не перезаписываются без {@code --overwrite}.
+ * Таблицы данных от {@code --csvFileRows} строк выносятся в файлы {@code @CsvFileSource} в директории ресурсов:
+ * по умолчанию {@code resources} рядом с выходной директорией {@code java}, иначе сама выходная директория.
+ * {@code --timeout} и {@code --allocationBytes} добавляют в тесты бюджеты времени и выделяемой памяти,
+ * проверяемые общим классом {@code testgen.PerformanceBudgets}, который записывается в выходную директорию один раз.
+ * Если хотя бы один тестирующий класс выполняется параллельно, в корень ресурсов добавляются настройки
+ * параллельного выполнения {@code junit-platform.properties}. С {@code --coverage} тесты генерируются только для методов,
+ * доля покрытых инструкций которых по XML отчету JaCoCo меньше {@code --coverageThreshold}, а файлы обрабатываются
+ * начиная с классов с наибольшим числом непокрытых инструкций. В конце выводится сводка метрик генерации по фазам.
+ */
+public class HeadlessTestsGenerator implements ApplicationStarter {
+
+    //region Поля
+    private static final String COMMAND_NAME = "generateTests";
+    private static final String USAGE = "Использование: generateTests <sourceRoot> <outputRoot> "
+                                        + "[--type UNIT|PARAMETERIZED|BENCHMARK] [--templates <dir>] [--threads N] [--overwrite] "
+                                        + "[--csvFileRows N] [--resources <dir>] [--timeout NONE|ANNOTATION|PREEMPTIVE] [--timeoutMillis N] "
+                                        + "[--allocationBytes N] [--coverage <jacoco.xml>] [--coverageThreshold 0.8] [--jdk <home>] [--classpath <paths>]";
+    private final AtomicInteger classCount = new AtomicInteger();
+    private final AtomicInteger methodCount = new AtomicInteger();
+    private final AtomicInteger writtenCount = new AtomicInteger();
+    private final AtomicInteger errorCount = new AtomicInteger();
+    private final AtomicBoolean isConcurrent = new AtomicBoolean();
+    //endregion
+
+    /**
+     * Параметры командной строки
+     */
+    private record Options(Path sourceRoot, Path outputRoot, TestType testType, Path templates, int threads, boolean isOverwrite,
+                           int csvFileRows, Path resourceRoot, TimeoutMode timeoutMode, long timeoutMillis,
+                           long allocationBytes, Path coverage, double coverageThreshold, Path jdkHome, List<Path> classpath) {
+
+        static Options parse(List<String> args) throws IllegalArgumentException {
+            // Первый аргумент - имя команды
+            List<String> positional = new ArrayList<>();
+            TestType testType = TestType.PARAMETERIZED;
+            Path templates = null;
+            int threads = Runtime.getRuntime().availableProcessors();
+            boolean isOverwrite = false;
+            int csvFileRows = 0;
+            Path resourceRoot = null;
+            TimeoutMode timeoutMode = TimeoutMode.NONE;
+            long timeoutMillis = 1000;
+            long allocationBytes = 0;
+            Path coverage = null;
+            double coverageThreshold = CoverageReport.DEFAULT_THRESHOLD;
+            Path jdkHome = Path.of(System.getProperty("java.home"));
+            List<Path> classpath = new ArrayList<>();
+            for (int i = 1; i < args.size(); i++) {
+                String arg = args.get(i);
+                switch (arg) {
+                    case "--type":
+                        testType = TestType.valueOf(value(args, ++i));
+                        break;
+                    case "--templates":
+                        templates = Path.of(value(args, ++i));
+                        break;
+                    case "--threads":
+                        threads = Integer.parseInt(value(args, ++i));
+                        break;
+                    case "--overwrite":
+                        isOverwrite = true;
+                        break;
+                    case "--csvFileRows":
+                        csvFileRows = Integer.parseInt(value(args, ++i));
+                        break;
+                    case "--resources":
+                        resourceRoot = Path.of(value(args, ++i));
+                        break;
+                    case "--timeout":
+                        timeoutMode = TimeoutMode.valueOf(value(args, ++i));
+                        break;
+                    case "--timeoutMillis":
+                        timeoutMillis = Long.parseLong(value(args, ++i));
+                        break;
+                    case "--allocationBytes":
+                        allocationBytes = Long.parseLong(value(args, ++i));
+                        break;
+                    case "--coverage":
+                        coverage = Path.of(value(args, ++i));
+                        break;
+                    case "--coverageThreshold":
+                        coverageThreshold = Double.parseDouble(value(args, ++i));
+                        break;
+                    case "--jdk":
+                        jdkHome = Path.of(value(args, ++i));
+                        break;
+                    case "--classpath":
+                        for (String entry : value(args, ++i).split(File.pathSeparator))
+                            if (!entry.isBlank()) classpath.add(Path.of(entry));
+                        break;
+                    default:
+                        positional.add(arg);
+                }
+            }
+            if (positional.size() != 2 || threads < 1 || csvFileRows < 0 || timeoutMillis < 1 || allocationBytes < 0
+                || coverageThreshold < 0 || coverageThreshold > 1)
+                throw new IllegalArgumentException(USAGE);
+            Path outputRoot = Path.of(positional.get(1));
+            if (resourceRoot == null) {
+                Path fileName = outputRoot.getFileName();
+                resourceRoot = fileName != null && fileName.toString().equals("java") ? outputRoot.resolveSibling("resources") : outputRoot;
+            }
+            return new Options(Path.of(positional.get(0)), outputRoot, testType, templates, threads, isOverwrite,
+                    csvFileRows, resourceRoot, timeoutMode, timeoutMillis, allocationBytes, coverage, coverageThreshold,
+                    jdkHome, classpath);
+        }
+
+        private static String value(List<String> args, int index) {
+            if (index >= args.size()) throw new IllegalArgumentException(USAGE);
+            return args.get(index);
+        }
+    }
+
+    @Override
+    public String getCommandName() {
+        return COMMAND_NAME;
+    }
+
+    @Override
+    public boolean isHeadless() {
+        return true;
+    }
+
+    @Override
+    public int getRequiredModality() {
+        return NOT_IN_EDT;
+    }
+
+    @Override
+    public void main(@NotNull List<String> args) {
+        int exitCode;
+        try {
+            Options options = Options.parse(args);
+            this.run(options);
+            exitCode = this.errorCount.get() > 0 ? 1 : 0;
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            exitCode = 2;
+        } catch (Exception e) {
+            e.printStackTrace();
+            exitCode = 1;
+        }
+        System.exit(exitCode);
+    }
+
+    //region Методы
+    private void run(Options options) throws IOException, InterruptedException {
+        if (!Files.isDirectory(options.sourceRoot()))
+            throw new IllegalArgumentException("Исходная директория не найдена: " + options.sourceRoot());
+        UnitTestsGenerator generator = new UnitTestsGenerator(false);
+        generator.setTemplates(options.templates() != null ? TestTemplates.load(options.templates()) : TestTemplates.getDefault());
+        generator.setCsvFileThreshold(options.csvFileRows());
+        generator.setTimeoutMode(options.timeoutMode());
+        generator.setTimeoutMillis(options.timeoutMillis());
+        generator.setAllocationBudget(options.allocationBytes());
+        CoverageReport coverageReport = null;
+        if (options.coverage() != null) {
+            coverageReport = CoverageReport.load(options.coverage());
+            generator.setCoverageReport(coverageReport);
+            generator.setCoverageThreshold(options.coverageThreshold());
+            System.out.printf("Отчет о покрытии: %d классов%n", coverageReport.size());
+        }
+
+        List<Path> files;
+        try (Stream<Path> paths = Files.walk(options.sourceRoot())) {
+            files = paths.filter(path -> path.toString().endsWith("." + Constants.Strings.Extensions.java) && Files.isRegularFile(path))
+                    .toList();
+        }
+        if (coverageReport != null)
+            files = this.sortByMissedInstructions(files, options.sourceRoot(), coverageReport);
+
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(options.threads());
+        try (HeadlessProject project = HeadlessProject.open(options.sourceRoot(), options.jdkHome(), options.classpath())) {
+            List<Future<?>> futures = new ArrayList<>(files.size());
+            for (Path file : files)
+                futures.add(executor.submit(() -> this.process(file, project, generator, options)));
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    this.errorCount.incrementAndGet();
+                    System.err.println(e.getCause().getMessage());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        if (this.isConcurrent.get())
+            this.writePlatformProperties(options.resourceRoot());
+        if (generator.isBudgetAsserted() && this.classCount.get() > 0)
+            this.writePerformanceSupport(generator, options);
+        this.printStatistics(files.size(), System.nanoTime() - start);
+        System.out.println(generator.getMetrics().getSummary());
+    }
+
+    /**
+     * Разбирает файл и записывает тестирующие классы для всех его классов верхнего уровня
+     */
+    private void process(Path file, HeadlessProject project, UnitTestsGenerator generator, Options options) {
+        String text;
+        try {
+            text = Files.readString(file, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new IllegalStateException("Не удалось прочитать " + file + ": " + e.getMessage(), e);
+        }
+        // Под действием чтения извлекаются только модели классов, генерация и запись выполняются после него
+        List<ClassModel> classModels = ReadAction.compute(() -> {
+            PsiFile psiFile = project.findFile(file, text);
+            List<ClassModel> models = new ArrayList<>();
+            if (!(psiFile instanceof PsiJavaFile javaFile)) return models;
+            for (PsiClass psiClass : javaFile.getClasses()) {
+                if (psiClass.getName() == null || psiClass.isAnnotationType()) continue;
+                ClassModel model = generator.createModel(psiClass, true);
+                // Все методы класса покрыты
+                if (options.coverage() != null && model.methods().isEmpty()) continue;
+                models.add(model);
+            }
+            return models;
+        });
+        for (ClassModel classModel : classModels) {
+            String testClassName = classModel.name() + options.testType().getClassSuffix();
+            TestDataFiles dataFiles = new TestDataFiles(testClassName);
+            StringBuilder sb = new StringBuilder();
+            generator.generate(new CodeWriter(sb), testClassName, classModel, null, options.testType(), dataFiles);
+            this.classCount.incrementAndGet();
+            this.methodCount.addAndGet(classModel.methods().size());
+            GenerationMetrics metrics = generator.getMetrics();
+            metrics.add(GenerationMetrics.Counter.CHARACTERS, sb.length());
+            GenerationMetrics.Measurement writing = metrics.start(GenerationMetrics.Phase.FILE_WRITE);
+            metrics.add(GenerationMetrics.Counter.FILES,
+                    this.write(options, classModel.packageName(), testClassName, sb.toString(), dataFiles.getFiles()));
+            metrics.stop(writing);
+            if (classModel.concurrent() && options.testType() != TestType.BENCHMARK)
+                this.isConcurrent.set(true);
+        }
+    }
+
+    /**
+     * Упорядочивает файлы по убыванию числа непокрытых инструкций их классов верхнего уровня,
+     * имя класса определяется по пути файла относительно исходной директории
+     */
+    private List<Path> sortByMissedInstructions(List<Path> files, Path sourceRoot, CoverageReport coverageReport) {
+        Map<Path, Long> missed = new HashMap<>();
+        for (Path file : files) {
+            String relativePath = sourceRoot.relativize(file).toString();
+            String className = relativePath.substring(0, relativePath.length() - Constants.Strings.Extensions.java.length() - 1)
+                    .replace(file.getFileSystem().getSeparator(), ".");
+            missed.put(file, coverageReport.getMissedInstructions(className));
+        }
+        List<Path> sorted = new ArrayList<>(files);
+        sorted.sort(Comparator.comparingLong((Path file) -> missed.get(file)).reversed());
+        return sorted;
+    }
+
+    /**
+     * Дополняет {@code junit-platform.properties} настройками параллельного выполнения
+     *
+     * @see JunitPlatformProperties
+     */
+    private void writePlatformProperties(Path resourceRoot) throws IOException {
+        Path path = resourceRoot.resolve(JunitPlatformProperties.FILE_NAME);
+        String content = Files.exists(path) ? Files.readString(path, StandardCharsets.UTF_8) : "";
+        String merged = JunitPlatformProperties.merge(content);
+        if (!merged.equals(content)) this.writeFile(path, merged);
+    }
+
+    /**
+     * Записывает общий класс бюджетов производительности в выходную директорию один раз за генерацию.
+     * Существующий класс не перезаписывается без {@code --overwrite}.
+     */
+    private void writePerformanceSupport(UnitTestsGenerator generator, Options options) throws IOException {
+        Path path = this.resolve(options.outputRoot(), UnitTestsGenerator.PERFORMANCE_SUPPORT_PACKAGE)
+                .resolve(UnitTestsGenerator.PERFORMANCE_SUPPORT_CLASS + "." + Constants.Strings.Extensions.java);
+        if (!options.isOverwrite() && Files.exists(path)) return;
+        StringBuilder sb = new StringBuilder();
+        generator.writePerformanceSupport(new CodeWriter(sb));
+        this.writeFile(path, sb.toString());
+    }
+
+    /**
+     * Записывает тестирующий класс и его файлы данных
+     *
+     * @return Количество записанных файлов, 0 - тестирующий класс уже существует
+     */
+    private int write(Options options, String packageName, String testClassName, String content, Map<String, String> dataFiles) {
+        Path path = this.resolve(options.outputRoot(), packageName).resolve(testClassName + "." + Constants.Strings.Extensions.java);
+        try {
+            if (!options.isOverwrite() && Files.exists(path)) return 0;
+            this.writeFile(path, content);
+            Path resourceDirectory = this.resolve(options.resourceRoot(), packageName);
+            for (Map.Entry<String, String> dataFile : dataFiles.entrySet())
+                this.writeFile(resourceDirectory.resolve(dataFile.getKey()), dataFile.getValue());
+            this.writtenCount.incrementAndGet();
+            return 1 + dataFiles.size();
+        } catch (IOException e) {
+            throw new IllegalStateException("Не удалось записать " + path + ": " + e.getMessage(), e);
+        }
+    }
+
+    private Path resolve(Path root, String packageName) {
+        return packageName.isEmpty() ? root : root.resolve(packageName.replace('.', '/'));
+    }
+
+    private void writeFile(Path path, String content) throws IOException {
+        Files.createDirectories(path.getParent());
+        Files.writeString(path, content, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    }
+
+    private void printStatistics(int fileCount, long elapsedNanos) {
+        double seconds = Math.max(elapsedNanos, 1) / 1_000_000_000.0;
+        System.out.printf("Файлов: %d, классов: %d, методов: %d, записано тестов: %d, ошибок: %d%n",
+                fileCount, this.classCount.get(), this.methodCount.get(), this.writtenCount.get(), this.errorCount.get());
+        System.out.printf("Время: %.2f с, классов/с: %.1f, методов/с: %.1f%n",
+                seconds, this.classCount.get() / seconds, this.methodCount.get() / seconds);
+    }
+    //endregion
+}
@@ -0,0 +1,147 @@
+package org.dasxunya.diploma;
+
+import com.intellij.openapi.actionSystem.ActionUpdateThread;
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.CommonDataKeys;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.Messages;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiModifier;
+import com.intellij.psi.SmartPointerManager;
+import com.intellij.psi.SmartPsiElementPointer;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.search.searches.ClassInheritorsSearch;
+import com.intellij.psi.util.PsiTreeUtil;
+import org.dasxunya.diploma.constants.TestType;
+import org.dasxunya.diploma.generator.GenerationResult;
+import org.dasxunya.diploma.generator.UnitTestsGenerator;
+import org.dasxunya.diploma.generator.templates.TestTemplates;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Генерация тестов для иерархии абстрактного класса или интерфейса:
+ * один абстрактный базовый тест с общей фикстурой и по тесту-наследнику на каждую конкретную реализацию в проекте.
+ */
+public class HierarchyUnitTestsPlugin extends AnAction {
+
+    //region Методы
+    /**
+     * Генератор создается на каждый запуск: шаблоны проекта и кэш типов действуют в пределах одной генерации
+     */
+    private UnitTestsGenerator createGenerator(Project project) {
+        UnitTestsGenerator generator = new UnitTestsGenerator(false);
+        generator.setTemplates(TestTemplates.forProject(project));
+        return generator;
+    }
+
+    private void showMessage(Project project, String message) {
+        Messages.showMessageDialog(project, message,
+                "Attention!", Messages.getWarningIcon());
+    }
+
+    /**
+     * Класс, для которого вызвано действие: выбранный элемент либо класс под курсором редактора
+     */
+    private PsiClass findTargetClass(AnActionEvent anActionEvent) {
+        PsiElement psiElement = anActionEvent.getData(CommonDataKeys.PSI_ELEMENT);
+        if (psiElement instanceof PsiClass psiClass) return psiClass;
+        Editor editor = anActionEvent.getData(CommonDataKeys.EDITOR);
+        PsiFile psiFile = anActionEvent.getData(CommonDataKeys.PSI_FILE);
+        if (editor == null || psiFile == null) return null;
+        return PsiTreeUtil.getParentOfType(psiFile.findElementAt(editor.getCaretModel().getOffset()), PsiClass.class);
+    }
+
+    /**
+     * Базой иерархии может быть интерфейс или абстрактный класс
+     */
+    private boolean isHierarchyBase(PsiClass psiClass) {
+        return psiClass != null
+               && psiClass.getName() != null
+               && !psiClass.isAnnotationType()
+               && (psiClass.isInterface() || psiClass.hasModifierProperty(PsiModifier.ABSTRACT));
+    }
+
+    /**
+     * Конкретные реализации базового класса в проекте, упорядоченные по полному имени
+     */
+    private List<PsiClass> findImplementations(Project project, PsiClass baseClass) {
+        return ClassInheritorsSearch.search(baseClass, GlobalSearchScope.projectScope(project), true).findAll().stream()
+                .filter(inheritor -> inheritor.getName() != null
+                                     && !inheritor.isInterface()
+                                     && !inheritor.hasModifierProperty(PsiModifier.ABSTRACT))
+                .sorted(Comparator.comparing(inheritor -> Objects.requireNonNullElse(inheritor.getQualifiedName(), inheritor.getName())))
+                .toList();
+    }
+
+    private void runInBackground(Project project, SmartPsiElementPointer<PsiClass> pointer, TestType testType) {
+        ProgressManager.getInstance().run(new Task.Backgroundable(project, "Генерация тестов иерархии", true) {
+            private List<GenerationResult> results = List.of();
+            private UnitTestsGenerator generator;
+
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                this.generator = createGenerator(project);
+                indicator.setIndeterminate(true);
+                indicator.setText("Поиск реализаций");
+                // Поиск наследников использует индексы, поэтому выполняется только вне индексации
+                this.results = ReadAction.nonBlocking(() -> {
+                            PsiClass baseClass = pointer.getElement();
+                            if (baseClass == null) return List.<GenerationResult>of();
+                            return this.generator.prepareHierarchy(baseClass, findImplementations(project, baseClass), testType);
+                        })
+                        .inSmartMode(project)
+                        .wrapProgress(indicator)
+                        .expireWith(project)
+                        .executeSynchronously();
+            }
+
+            @Override
+            public void onSuccess() {
+                if (!this.results.isEmpty() && !project.isDisposed())
+                    this.generator.write(project, this.results);
+            }
+
+            @Override
+            public void onThrowable(@NotNull Throwable error) {
+                showMessage(project, error.getMessage());
+            }
+        });
+    }
+    //endregion
+
+    @Override
+    public void actionPerformed(@NotNull AnActionEvent anActionEvent) {
+        Project project = anActionEvent.getProject();
+        PsiClass psiClass = this.findTargetClass(anActionEvent);
+        if (project == null || !this.isHierarchyBase(psiClass)) return;
+        if (DumbService.isDumb(project)) {
+            DumbService.getInstance(project).showDumbModeNotification("Генерация тестов иерархии недоступна во время индексации");
+            return;
+        }
+        this.runInBackground(project, SmartPointerManager.createPointer(psiClass), TestType.PARAMETERIZED);
+    }
+
+    @Override
+    public @NotNull ActionUpdateThread getActionUpdateThread() {
+        return ActionUpdateThread.BGT;
+    }
+
+    @Override
+    public void update(@NotNull AnActionEvent anActionEvent) {
+        anActionEvent.getPresentation().setEnabledAndVisible(
+                anActionEvent.getProject() != null && this.isHierarchyBase(this.findTargetClass(anActionEvent)));
+    }
+}
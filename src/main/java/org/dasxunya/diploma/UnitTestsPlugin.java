@@ -4,16 +4,31 @@ import com.intellij.openapi.actionSystem.ActionUpdateThread;
 import com.intellij.openapi.actionSystem.AnAction;
 import com.intellij.openapi.actionSystem.AnActionEvent;
 import com.intellij.openapi.actionSystem.CommonDataKeys;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.DumbService;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.ui.Messages;
 import com.intellij.psi.PsiClass;
 import com.intellij.psi.PsiDirectory;
 import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiMember;
 import com.intellij.psi.PsiMethod;
+import com.intellij.psi.util.PsiTreeUtil;
+import org.dasxunya.diploma.constants.Constants;
 import org.dasxunya.diploma.constants.TestType;
+import org.dasxunya.diploma.generator.GenerationResult;
 import org.dasxunya.diploma.generator.UnitTestsGenerator;
+import org.dasxunya.diploma.generator.templates.TestTemplates;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.ArrayList;
+import java.util.List;
+
 
 /**
  * TODO:
@@ -36,16 +51,30 @@ import org.jetbrains.annotations.NotNull;
 public class UnitTestsPlugin extends AnAction {
 
     //region Поля
-    private final UnitTestsGenerator generator;
+    /**
+     * Типы элементов, для которых вызывается действие. Массив создается один раз,
+     * чтобы update() не выделял память при каждом открытии контекстного меню.
+     */
+    @SuppressWarnings("unchecked")
+    private static final Class<? extends PsiMember>[] TARGET_TYPES = new Class[]{PsiMethod.class, PsiClass.class};
     //endregion
 
-    //region Конструкторы
-    public UnitTestsPlugin() {
-        this.generator = new UnitTestsGenerator(true);
+    //region Методы
+    /**
+     * Генератор создается на каждый запуск: шаблоны проекта и кэш типов действуют в пределах одной генерации
+     */
+    private UnitTestsGenerator createGenerator(Project project) {
+        UnitTestsGenerator generator = new UnitTestsGenerator(true);
+        generator.setTemplates(TestTemplates.forProject(project));
+        return generator;
     }
-    //endregion
 
-    //region Методы
+    /**
+     * Тип генерируемых тестов, переопределяется действиями для других типов
+     */
+    protected TestType getTestType() {
+        return TestType.PARAMETERIZED;
+    }
 
     private void showMessage(Project project, String message) {
         Messages.showMessageDialog(project, message,
@@ -76,34 +105,137 @@ public class UnitTestsPlugin extends AnAction {
     public void actionPerformed(@NotNull AnActionEvent anActionEvent) {
         try {
             Project project = anActionEvent.getProject();
-            PsiElement psiElement = anActionEvent.getData(CommonDataKeys.PSI_ELEMENT);
+            PsiElement psiElement = this.findTargetElement(anActionEvent);
 
             if (psiElement == null || project == null) {
                 return; // Early exit if no project or element
             }
+            // Неподдерживаемый элемент отклоняется сразу, чтобы не прерывать пакет отложенных запросов
+            if (!(psiElement instanceof PsiClass) && !(psiElement instanceof PsiMethod)) {
+                throw new IllegalArgumentException(Constants.Strings.Release.Errors.ILLEGAL_ARGUMENT);
+            }
             PsiDirectory psiDirectory = psiElement.getContainingFile().getContainingDirectory();
             if (psiDirectory == null) {
                 throw new NullPointerException("Не удалось получить директорию проекта");
             }
-            this.generator.generate(project, psiElement, psiDirectory, TestType.PARAMETERIZED);
+            GenerationRequest request = GenerationRequest.create(psiElement, psiDirectory, this.getTestType());
+            if (DumbService.isDumb(project)) {
+                this.enqueue(project, request);
+                return;
+            }
+            this.runInBackground(project, List.of(request));
 
         } catch (Exception ex) {
             showMessage(anActionEvent.getProject(), ex.getMessage());
         }
     }
 
+    /**
+     * Класс или метод, для которого вызвано действие. Во время индексации редактор может не предоставить
+     * PSI_ELEMENT, тогда элемент определяется по положению курсора без обращения к индексам.
+     */
+    private PsiElement findTargetElement(AnActionEvent anActionEvent) {
+        PsiElement psiElement = anActionEvent.getData(CommonDataKeys.PSI_ELEMENT);
+        if (psiElement != null) return psiElement;
+        Editor editor = anActionEvent.getData(CommonDataKeys.EDITOR);
+        PsiFile psiFile = anActionEvent.getData(CommonDataKeys.PSI_FILE);
+        if (editor == null || psiFile == null) return null;
+        return PsiTreeUtil.getParentOfType(psiFile.findElementAt(editor.getCaretModel().getOffset()), TARGET_TYPES);
+    }
+
+    /**
+     * Откладывает запрос до окончания индексации. Все запросы, накопленные за время индексации,
+     * выполняются одной фоновой задачей.
+     */
+    private void enqueue(Project project, GenerationRequest request) {
+        GenerationQueue queue = GenerationQueue.getInstance(project);
+        if (queue.add(request))
+            DumbService.getInstance(project).runWhenSmart(() -> this.runInBackground(project, queue.drain()));
+        DumbService.getInstance(project).showDumbModeNotification("Генерация тестов начнется после завершения индексации");
+    }
+
+    /**
+     * Запускает генерацию в фоновой задаче: чтение PSI выполняется в неблокирующем действии чтения
+     * с возможностью отмены, на EDT возвращается только создание файлов.
+     */
+    private void runInBackground(Project project, List<GenerationRequest> requests) {
+        if (requests.isEmpty()) return;
+        ProgressManager.getInstance().run(new Task.Backgroundable(project, "Генерация тестов", true) {
+            private final List<GenerationResult> results = new ArrayList<>();
+            /**
+             * Имена элементов, удаленных до начала генерации
+             */
+            private final List<String> skipped = new ArrayList<>();
+            private UnitTestsGenerator generator;
+
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                indicator.setIndeterminate(requests.size() == 1);
+                this.generator = createGenerator(project);
+                for (int i = 0; i < requests.size(); i++) {
+                    GenerationRequest request = requests.get(i);
+                    indicator.setText2(String.format("%s: методов - %d", request.elementName(), request.methodCount()));
+                    GenerationResult result = ReadAction.nonBlocking(() -> this.prepare(request))
+                            .inSmartMode(project)
+                            .wrapProgress(indicator)
+                            .expireWith(project)
+                            .executeSynchronously();
+                    if (result != null)
+                        this.results.add(result);
+                    else
+                        this.skipped.add(request.elementName());
+                    indicator.setFraction((double) (i + 1) / requests.size());
+                }
+            }
+
+            private GenerationResult prepare(GenerationRequest request) {
+                PsiElement psiElement = request.element().getElement();
+                PsiDirectory psiDirectory = request.directory().getElement();
+                if (psiElement == null || psiDirectory == null) return null;
+                return this.generator.prepare(psiElement, psiDirectory, request.testType());
+            }
+
+            @Override
+            public void onSuccess() {
+                if (project.isDisposed()) return;
+                if (!this.results.isEmpty())
+                    this.generator.write(project, this.results);
+                if (!this.skipped.isEmpty())
+                    showMessage(project, "Элементы были удалены до начала генерации: " + String.join(", ", this.skipped));
+            }
+
+            @Override
+            public void onThrowable(@NotNull Throwable error) {
+                showMessage(project, error.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Проверяет, есть ли у элемента члены, для которых можно сгенерировать тесты.
+     * Не создает объектов: массив методов класса кэшируется PSI.
+     */
+    private boolean isGeneratable(PsiElement psiElement) {
+        if (psiElement instanceof PsiMethod psiMethod)
+            return psiMethod.getContainingClass() != null;
+        if (psiElement instanceof PsiClass psiClass)
+            return !psiClass.isAnnotationType() && psiClass.getName() != null && psiClass.getMethods().length > 0;
+        return false;
+    }
+
     @Override
     public @NotNull ActionUpdateThread getActionUpdateThread() {
-        return super.getActionUpdateThread();
+        return ActionUpdateThread.BGT;
     }
 
     @Override
     public void update(@NotNull AnActionEvent anActionEvent) {
-        super.update(anActionEvent);
+        PsiElement psiElement = anActionEvent.getProject() != null ? this.findTargetElement(anActionEvent) : null;
+        anActionEvent.getPresentation().setEnabledAndVisible(this.isGeneratable(psiElement));
     }
 
     @Override
     public boolean isDumbAware() {
-        return false;
+        return true;
     }
 }
\ No newline at end of file
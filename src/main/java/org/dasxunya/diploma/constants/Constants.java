@@ -70,6 +70,35 @@ public class Constants {
         public static class Extensions {
             public static final String txt = "txt";
             public static final String java = "java";
+            public static final String csv = "csv";
+        }
+
+        /**
+         * Имена шаблонов тестов
+         */
+        public static class Templates {
+            public static final String testClass = "testClass";
+            public static final String classHeader = "classHeader";
+            public static final String unitTest = "unitTest";
+            public static final String parameterizedTest = "parameterizedTest";
+            public static final String parameterizedMethodSourceTest = "parameterizedMethodSourceTest";
+            public static final String parameterizedCsvFileTest = "parameterizedCsvFileTest";
+            public static final String assertBoolean = "assertBoolean";
+            public static final String assertIntegral = "assertIntegral";
+            public static final String assertFloating = "assertFloating";
+            public static final String assertVoid = "assertVoid";
+            public static final String assertObject = "assertObject";
+            public static final String hierarchyBaseTestClass = "hierarchyBaseTestClass";
+            public static final String hierarchySubclassTestClass = "hierarchySubclassTestClass";
+            public static final String benchmarkClass = "benchmarkClass";
+            public static final String benchmark = "benchmark";
+            public static final String performanceGuard = "performanceGuard";
+            public static final String performanceSupport = "performanceSupport";
+            /**
+             * Директория шаблонов проекта относительно его корня
+             */
+            public static final String projectDirectory = ".testgen/templates";
+            public static final String extension = "tmpl";
         }
     }
 }
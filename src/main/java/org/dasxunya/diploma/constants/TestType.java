@@ -1,6 +1,23 @@
 package org.dasxunya.diploma.constants;
 
 public enum TestType {
-    UNIT,
-    PARAMETERIZED
+    UNIT("Tests"),
+    PARAMETERIZED("Tests"),
+    /**
+     * Класс бенчмарков JMH вместо тестов JUnit
+     */
+    BENCHMARK("Benchmark");
+
+    /**
+     * Суффикс имени генерируемого класса после имени тестируемого класса
+     */
+    private final String classSuffix;
+
+    TestType(String classSuffix) {
+        this.classSuffix = classSuffix;
+    }
+
+    public String getClassSuffix() {
+        return classSuffix;
+    }
 }
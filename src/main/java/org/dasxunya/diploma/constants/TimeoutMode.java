@@ -0,0 +1,16 @@
+package org.dasxunya.diploma.constants;
+
+/**
+ * Ограничение времени выполнения генерируемых тестов
+ */
+public enum TimeoutMode {
+    NONE,
+    /**
+     * Аннотация {@code @Timeout} с бюджетом, заданным при генерации
+     */
+    ANNOTATION,
+    /**
+     * Проверки выполняются в {@code assertTimeoutPreemptively} с бюджетом из файла калибровки
+     */
+    PREEMPTIVE
+}
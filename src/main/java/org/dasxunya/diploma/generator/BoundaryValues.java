@@ -0,0 +1,85 @@
+package org.dasxunya.diploma.generator;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Граничные значения параметров по категориям типов: ноль, единица, -1, MIN/MAX, NaN, пустая строка и т.п.
+ * <p>
+ * Первым значением всегда идет пример значения параметра, поэтому первая строка данных совпадает с примером.
+ * Для сложных типов граничные значения не определены и используется только пример.
+ * Значения {@code null} не включаются: пустое значение в {@code @CsvSource} с одним параметром не разбирается.
+ */
+public final class BoundaryValues {
+
+    //region Поля
+    private static final Map<TypeCategory, List<ExampleData>> VALUES = new EnumMap<>(TypeCategory.class);
+
+    static {
+        VALUES.put(TypeCategory.BOOLEAN, List.of(
+                new ExampleData("false", "false")));
+        VALUES.put(TypeCategory.BYTE, List.of(
+                new ExampleData("1", "(byte) 1"),
+                new ExampleData("-1", "(byte) -1"),
+                new ExampleData(Byte.toString(Byte.MIN_VALUE), "Byte.MIN_VALUE"),
+                new ExampleData(Byte.toString(Byte.MAX_VALUE), "Byte.MAX_VALUE")));
+        VALUES.put(TypeCategory.SHORT, List.of(
+                new ExampleData("1", "(short) 1"),
+                new ExampleData("-1", "(short) -1"),
+                new ExampleData(Short.toString(Short.MIN_VALUE), "Short.MIN_VALUE"),
+                new ExampleData(Short.toString(Short.MAX_VALUE), "Short.MAX_VALUE")));
+        VALUES.put(TypeCategory.INT, List.of(
+                new ExampleData("1", "1"),
+                new ExampleData("-1", "-1"),
+                new ExampleData(Integer.toString(Integer.MIN_VALUE), "Integer.MIN_VALUE"),
+                new ExampleData(Integer.toString(Integer.MAX_VALUE), "Integer.MAX_VALUE")));
+        VALUES.put(TypeCategory.LONG, List.of(
+                new ExampleData("1", "1L"),
+                new ExampleData("-1", "-1L"),
+                new ExampleData(Long.toString(Long.MIN_VALUE), "Long.MIN_VALUE"),
+                new ExampleData(Long.toString(Long.MAX_VALUE), "Long.MAX_VALUE")));
+        VALUES.put(TypeCategory.CHAR, List.of(
+                new ExampleData("'Z'", "'Z'"),
+                new ExampleData("'0'", "'0'"),
+                new ExampleData("' '", "' '")));
+        VALUES.put(TypeCategory.FLOAT, List.of(
+                new ExampleData("-1.0f", "-1.0f"),
+                new ExampleData(Float.toString(Float.MIN_VALUE), "Float.MIN_VALUE"),
+                new ExampleData(Float.toString(Float.MAX_VALUE), "Float.MAX_VALUE"),
+                new ExampleData("NaN", "Float.NaN")));
+        VALUES.put(TypeCategory.DOUBLE, List.of(
+                new ExampleData("-1.0", "-1.0"),
+                new ExampleData(Double.toString(Double.MIN_VALUE), "Double.MIN_VALUE"),
+                new ExampleData(Double.toString(Double.MAX_VALUE), "Double.MAX_VALUE"),
+                new ExampleData("NaN", "Double.NaN")));
+        VALUES.put(TypeCategory.STRING, List.of(
+                new ExampleData("''", "\"\""),
+                new ExampleData("' '", "\" \"")));
+    }
+    //endregion
+
+    //region Конструкторы
+    private BoundaryValues() {
+    }
+    //endregion
+
+    //region Методы
+    /**
+     * Значения параметра для строк данных
+     *
+     * @param category Категория типа параметра
+     * @param example  Пример значения параметра
+     * @return Пример, за которым следуют граничные значения категории
+     */
+    public static List<ExampleData> of(TypeCategory category, ExampleData example) {
+        List<ExampleData> boundaries = VALUES.get(category);
+        if (boundaries == null) return List.of(example);
+        List<ExampleData> values = new ArrayList<>(boundaries.size() + 1);
+        values.add(example);
+        values.addAll(boundaries);
+        return values;
+    }
+    //endregion
+}
@@ -0,0 +1,142 @@
+package org.dasxunya.diploma.generator;
+
+import org.dasxunya.diploma.constants.Constants;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Потоковый писатель исходного кода с учетом отступов.
+ * Токены записываются напрямую в общий {@link Appendable} без промежуточных строк,
+ * отступ текущего уровня добавляется в начале каждой непустой строки.
+ */
+public class CodeWriter {
+
+    //region Поля
+    private final Appendable out;
+    private final String indentUnit;
+    /**
+     * Отступы вложенных уровней, записываемые в начале строки по порядку
+     */
+    private final List<String> indents = new ArrayList<>();
+    /**
+     * Признак того, что следующий символ будет первым в строке
+     */
+    private boolean isLineStart = true;
+    /**
+     * Количество записанных символов
+     */
+    private long length;
+    //endregion
+
+    //region Конструкторы
+    public CodeWriter(Appendable out) {
+        this(out, Constants.Strings.Code.tabulation);
+    }
+
+    public CodeWriter(Appendable out, String indentUnit) {
+        this.out = Objects.requireNonNull(out, "Appendable не инициализирован");
+        this.indentUnit = Objects.requireNonNull(indentUnit, "Отступ не инициализирован");
+    }
+    //endregion
+
+    //region Сеттеры/Геттеры
+    public Appendable getOut() {
+        return out;
+    }
+
+    public long getLength() {
+        return length;
+    }
+    //endregion
+
+    //region Методы
+    public CodeWriter indent() {
+        return this.indent(this.indentUnit);
+    }
+
+    /**
+     * Увеличивает отступ на произвольную строку, например на отступ строки шаблона
+     */
+    public CodeWriter indent(String indent) {
+        this.indents.add(indent);
+        return this;
+    }
+
+    public CodeWriter unindent() {
+        if (!this.indents.isEmpty()) this.indents.remove(this.indents.size() - 1);
+        return this;
+    }
+
+    /**
+     * Записывает текст, переводы строк внутри которого учитываются при расстановке отступов
+     */
+    public CodeWriter print(CharSequence text) {
+        return this.print(text, 0, text.length());
+    }
+
+    public CodeWriter print(CharSequence text, int start, int end) {
+        int segmentStart = start;
+        for (int i = start; i < end; i++) {
+            if (text.charAt(i) == '\n') {
+                this.write(text, segmentStart, i);
+                this.newLine();
+                segmentStart = i + 1;
+            }
+        }
+        this.write(text, segmentStart, end);
+        return this;
+    }
+
+    public CodeWriter print(char c) {
+        if (c == '\n') return this.newLine();
+        try {
+            this.writeIndent();
+            this.out.append(c);
+            this.length++;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return this;
+    }
+
+    public CodeWriter println(CharSequence text) {
+        return this.print(text).newLine();
+    }
+
+    public CodeWriter newLine() {
+        try {
+            this.out.append('\n');
+            this.length++;
+            this.isLineStart = true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return this;
+    }
+
+    private void write(CharSequence text, int start, int end) {
+        if (start >= end) return;
+        try {
+            this.writeIndent();
+            this.out.append(text, start, end);
+            this.length += end - start;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeIndent() throws IOException {
+        if (!this.isLineStart) return;
+        this.isLineStart = false;
+        for (int i = 0; i < this.indents.size(); i++) {
+            String indent = this.indents.get(i);
+            this.out.append(indent);
+            this.length += indent.length();
+        }
+    }
+    //endregion
+}
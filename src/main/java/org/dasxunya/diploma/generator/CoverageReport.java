@@ -0,0 +1,348 @@
+package org.dasxunya.diploma.generator;
+
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiMethod;
+import com.intellij.psi.PsiParameter;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Покрытие методов по XML отчету JaCoCo, по которому пакетная генерация отбирает недостаточно покрытые методы.
+ * <p>
+ * Отчет читается потоково (StAX) без загрузки DTD, в памяти остаются только счетчики инструкций методов,
+ * сгруппированные по классу и имени метода. Метод сопоставляется с дескриптором JaCoCo по простым именам
+ * стертых типов параметров, а если они не совпали (параметры-переменные типа) - по числу параметров, когда метод
+ * с таким именем и числом параметров единственный. Вложенные классы сопоставляются по квалифицированному имени
+ * ({@code a/Outer$Inner} - {@code a.Outer.Inner}). Файл {@code .exec} содержит только пробы без структуры классов,
+ * поэтому не поддерживается: по нему нужно сформировать XML отчет.
+ */
+public final class CoverageReport {
+
+    //region Поля
+    /**
+     * Доля покрытых инструкций по умолчанию, начиная с которой метод считается покрытым
+     */
+    public static final double DEFAULT_THRESHOLD = 0.8;
+    /**
+     * Расположение отчетов Gradle и Maven относительно корня проекта
+     */
+    private static final String[] DEFAULT_LOCATIONS = {
+            "build/reports/jacoco/test/jacocoTestReport.xml",
+            "target/site/jacoco/jacoco.xml"
+    };
+    private static final String CONSTRUCTOR_NAME = "<init>";
+    private final Map<String, ClassCoverage> classes;
+    //endregion
+
+    /**
+     * Покрытие метода инструкциями байт-кода
+     *
+     * @param parameters     Простые имена стертых типов параметров через запятую
+     * @param parameterCount Количество параметров
+     * @param missed         Непокрытые инструкции
+     * @param covered        Покрытые инструкции
+     */
+    public record MethodCoverage(String parameters, int parameterCount, int missed, int covered) {
+
+        /**
+         * Доля покрытых инструкций, метод без инструкций считается покрытым
+         */
+        public double getRatio() {
+            int total = this.missed + this.covered;
+            return total > 0 ? (double) this.covered / total : 1.0;
+        }
+    }
+
+    /**
+     * Методы класса по имени и общее число непокрытых инструкций
+     */
+    private static final class ClassCoverage {
+        private final Map<String, List<MethodCoverage>> methods = new HashMap<>();
+        private long missed;
+
+        private void add(String name, MethodCoverage coverage) {
+            this.methods.computeIfAbsent(name, key -> new ArrayList<>(1)).add(coverage);
+            this.missed += coverage.missed();
+        }
+    }
+
+    //region Конструкторы
+    private CoverageReport(Map<String, ClassCoverage> classes) {
+        this.classes = classes;
+    }
+    //endregion
+
+    //region Методы
+
+    //region Чтение отчета
+    /**
+     * Ищет отчет JaCoCo в стандартных расположениях Gradle и Maven
+     *
+     * @param projectRoot Корень проекта
+     * @return Путь к отчету, null - отчет не сформирован
+     */
+    public static Path find(Path projectRoot) {
+        for (String location : DEFAULT_LOCATIONS) {
+            Path path = projectRoot.resolve(location);
+            if (Files.isRegularFile(path)) return path;
+        }
+        return null;
+    }
+
+    /**
+     * Читает XML отчет JaCoCo
+     *
+     * @throws IllegalArgumentException Передан файл {@code .exec}
+     * @throws IOException              Файл не прочитан или не является отчетом JaCoCo
+     */
+    public static CoverageReport load(Path path) throws IOException, IllegalArgumentException {
+        if (path.toString().endsWith(".exec"))
+            throw new IllegalArgumentException("Файл .exec не содержит структуры классов, сформируйте по нему XML отчет JaCoCo: " + path);
+        try (InputStream input = Files.newInputStream(path)) {
+            return parse(input);
+        }
+    }
+
+    /**
+     * Потоково читает XML отчет JaCoCo
+     *
+     * @throws IOException Поток не прочитан или не является отчетом JaCoCo
+     */
+    public static CoverageReport parse(InputStream input) throws IOException {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        // Отчет ссылается на report.dtd, который не нужен для чтения и не загружается
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        Map<String, ClassCoverage> classes = new HashMap<>();
+        try {
+            XMLStreamReader reader = factory.createXMLStreamReader(input);
+            try {
+                ClassCoverage currentClass = null;
+                String methodName = null;
+                String methodDescriptor = null;
+                while (reader.hasNext()) {
+                    int event = reader.next();
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        switch (reader.getLocalName()) {
+                            case "class":
+                                currentClass = classes.computeIfAbsent(getClassName(reader.getAttributeValue(null, "name")),
+                                        name -> new ClassCoverage());
+                                break;
+                            case "method":
+                                methodName = reader.getAttributeValue(null, "name");
+                                methodDescriptor = reader.getAttributeValue(null, "desc");
+                                break;
+                            case "counter":
+                                // Счетчики класса, пакета и отчета повторяют сумму счетчиков методов
+                                if (currentClass != null && methodName != null
+                                    && "INSTRUCTION".equals(reader.getAttributeValue(null, "type"))) {
+                                    currentClass.add(methodName, createCoverage(methodDescriptor,
+                                            Integer.parseInt(reader.getAttributeValue(null, "missed")),
+                                            Integer.parseInt(reader.getAttributeValue(null, "covered"))));
+                                    methodName = null;
+                                }
+                                break;
+                        }
+                    } else if (event == XMLStreamConstants.END_ELEMENT) {
+                        switch (reader.getLocalName()) {
+                            case "method":
+                                methodName = null;
+                                break;
+                            case "class":
+                                currentClass = null;
+                                break;
+                        }
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException | RuntimeException e) {
+            throw new IOException("Некорректный отчет JaCoCo: " + e.getMessage(), e);
+        }
+        return new CoverageReport(classes);
+    }
+
+    /**
+     * Квалифицированное имя класса по внутреннему имени JaCoCo: {@code a/Outer$Inner} - {@code a.Outer.Inner}
+     */
+    private static String getClassName(String internalName) {
+        return internalName.replace('/', '.').replace('$', '.');
+    }
+
+    /**
+     * Покрытие метода с параметрами из дескриптора: {@code (Ljava/lang/String;[I)V} - {@code String,int[]}
+     */
+    private static MethodCoverage createCoverage(String descriptor, int missed, int covered) {
+        StringBuilder parameters = new StringBuilder();
+        int count = 0;
+        int dimensions = 0;
+        for (int i = 1; i < descriptor.length() && descriptor.charAt(i) != ')'; i++) {
+            char c = descriptor.charAt(i);
+            if (c == '[') {
+                dimensions++;
+                continue;
+            }
+            if (count++ > 0) parameters.append(',');
+            if (c == 'L') {
+                int end = descriptor.indexOf(';', i);
+                int start = Math.max(i, Math.max(descriptor.lastIndexOf('/', end), descriptor.lastIndexOf('$', end))) + 1;
+                parameters.append(descriptor, start, end);
+                i = end;
+            } else {
+                parameters.append(getPrimitiveName(c));
+            }
+            for (; dimensions > 0; dimensions--)
+                parameters.append("[]");
+        }
+        return new MethodCoverage(parameters.toString(), count, missed, covered);
+    }
+
+    private static String getPrimitiveName(char descriptor) {
+        switch (descriptor) {
+            case 'Z':
+                return "boolean";
+            case 'B':
+                return "byte";
+            case 'C':
+                return "char";
+            case 'S':
+                return "short";
+            case 'I':
+                return "int";
+            case 'J':
+                return "long";
+            case 'F':
+                return "float";
+            case 'D':
+                return "double";
+            default:
+                throw new IllegalArgumentException("Неизвестный тип в дескрипторе метода: " + descriptor);
+        }
+    }
+    //endregion
+
+    //region Поиск покрытия
+    /**
+     * Количество классов в отчете
+     */
+    public int size() {
+        return this.classes.size();
+    }
+
+    /**
+     * Непокрытые инструкции класса
+     *
+     * @param className Квалифицированное имя класса
+     * @return Количество инструкций, -1 - класса нет в отчете
+     */
+    public long getMissedInstructions(String className) {
+        ClassCoverage classCoverage = className != null ? this.classes.get(className) : null;
+        return classCoverage != null ? classCoverage.missed : -1;
+    }
+
+    /**
+     * Покрытие метода
+     *
+     * @param className  Квалифицированное имя класса
+     * @param methodName Имя метода, {@code <init>} - конструктор
+     * @param parameters Простые имена стертых типов параметров через запятую
+     * @return Покрытие, null - метода нет в отчете
+     */
+    public MethodCoverage find(String className, String methodName, String parameters) {
+        ClassCoverage classCoverage = className != null ? this.classes.get(className) : null;
+        List<MethodCoverage> overloads = classCoverage != null ? classCoverage.methods.get(methodName) : null;
+        if (overloads == null) return null;
+        int parameterCount = parameters.isEmpty() ? 0 : parameters.split(",").length;
+        MethodCoverage candidate = null;
+        int candidates = 0;
+        for (MethodCoverage coverage : overloads) {
+            if (coverage.parameters().equals(parameters)) return coverage;
+            if (coverage.parameterCount() == parameterCount) {
+                candidate = coverage;
+                candidates++;
+            }
+        }
+        return candidates == 1 ? candidate : null;
+    }
+
+    /**
+     * Покрытие метода. Требует доступа на чтение PSI.
+     */
+    public MethodCoverage find(PsiClass psiClass, PsiMethod psiMethod) {
+        return this.find(psiClass.getQualifiedName(), psiMethod.isConstructor() ? CONSTRUCTOR_NAME : psiMethod.getName(),
+                getParameters(psiMethod));
+    }
+
+    /**
+     * Отбирает методы, доля покрытых инструкций которых меньше порога, в порядке убывания числа непокрытых инструкций.
+     * Методы, которых нет в отчете, считаются непокрытыми и идут последними в исходном порядке,
+     * для класса, которого нет в отчете, возвращаются все методы. Требует доступа на чтение PSI.
+     *
+     * @param psiClass  Тестируемый класс
+     * @param methods   Методы класса
+     * @param threshold Доля покрытых инструкций, начиная с которой метод считается покрытым
+     * @return Недостаточно покрытые методы
+     */
+    public PsiMethod[] selectUncovered(PsiClass psiClass, PsiMethod[] methods, double threshold) {
+        if (this.getMissedInstructions(psiClass.getQualifiedName()) < 0) return methods;
+        List<PsiMethod> uncovered = new ArrayList<>(methods.length);
+        Map<PsiMethod, Integer> missed = new HashMap<>();
+        for (PsiMethod method : methods) {
+            MethodCoverage coverage = this.find(psiClass, method);
+            if (coverage != null && coverage.getRatio() >= threshold) continue;
+            uncovered.add(method);
+            missed.put(method, coverage != null ? coverage.missed() : -1);
+        }
+        uncovered.sort(Comparator.comparingInt((PsiMethod method) -> missed.get(method)).reversed());
+        return uncovered.toArray(PsiMethod.EMPTY_ARRAY);
+    }
+
+    /**
+     * Простые имена стертых типов параметров метода через запятую
+     */
+    static String getParameters(PsiMethod psiMethod) {
+        StringBuilder sb = new StringBuilder();
+        for (PsiParameter parameter : psiMethod.getParameterList().getParameters()) {
+            if (sb.length() > 0) sb.append(',');
+            sb.append(getErasedName(parameter.getType().getPresentableText()));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Простое имя стертого типа: {@code Map<String, List<Integer>>[]} - {@code Map[]}, {@code String...} - {@code String[]}
+     */
+    private static String getErasedName(String typeText) {
+        StringBuilder sb = new StringBuilder(typeText.length());
+        int depth = 0;
+        for (int i = 0; i < typeText.length(); i++) {
+            char c = typeText.charAt(i);
+            if (c == '<') depth++;
+            else if (c == '>') depth--;
+            else if (depth == 0) sb.append(c);
+        }
+        String erased = sb.toString().replace("...", "[]").trim();
+        int arrayStart = erased.indexOf('[');
+        String dimensions = arrayStart >= 0 ? erased.substring(arrayStart) : "";
+        String name = arrayStart >= 0 ? erased.substring(0, arrayStart).trim() : erased;
+        // Аннотации типа и квалификатор пакета отбрасываются
+        name = name.substring(Math.max(name.lastIndexOf(' '), name.lastIndexOf('.')) + 1);
+        return name + dimensions.replace(" ", "");
+    }
+    //endregion
+
+    //endregion
+}
@@ -0,0 +1,29 @@
+package org.dasxunya.diploma.generator;
+
+/**
+ * Пример значения параметра в двух формах: для строки {@code @CsvSource} и для кода на Java
+ *
+ * @param csv        Литерал для CSV, который JUnit преобразует к типу параметра, null - тип не выражается в CSV
+ * @param expression Выражение на Java, создающее значение, например {@code java.util.List.of(0)}
+ */
+public record ExampleData(String csv, String expression) {
+
+    /**
+     * Значение, которое не удалось построить
+     */
+    public static final ExampleData NULL = new ExampleData(null, "null");
+
+    /**
+     * Тип значения преобразуется JUnit из CSV
+     */
+    public boolean isCsvConvertible() {
+        return this.csv != null;
+    }
+
+    /**
+     * Значение для CSV. Пустое значение без кавычек JUnit передает как null.
+     */
+    public String getCsvValue() {
+        return this.csv != null ? this.csv : "";
+    }
+}
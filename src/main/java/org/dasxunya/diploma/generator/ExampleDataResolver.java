@@ -0,0 +1,290 @@
+package org.dasxunya.diploma.generator;
+
+import com.intellij.psi.PsiArrayType;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiClassType;
+import com.intellij.psi.PsiEnumConstant;
+import com.intellij.psi.PsiField;
+import com.intellij.psi.PsiMethod;
+import com.intellij.psi.PsiModifier;
+import com.intellij.psi.PsiParameter;
+import com.intellij.psi.PsiRecordComponent;
+import com.intellij.psi.PsiType;
+import com.intellij.psi.PsiTypeParameter;
+
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Построение примеров значений по типу параметра.
+ * <p>
+ * Примитивы и строка берутся из {@link TypeCategory}, обертки, {@code BigDecimal}, даты и т.п. - из таблицы
+ * известных типов, {@code List}/{@code Set}/{@code Map}/{@code Optional} заполняются примером элемента,
+ * массивы - примером компонента, перечисления - первой константой, записи и классы создаются конструктором
+ * с наименьшим числом параметров. Вложенность ограничена {@link #MAX_DEPTH}, глубже подставляется null.
+ * <p>
+ * Результаты кэшируются по каноническому тексту типа и глубине вложенности: значение, построенное на верхнем
+ * уровне, не подставляется глубже, где оно превысило бы {@link #MAX_DEPTH}, а повторяющиеся DTO на одной глубине
+ * обходятся один раз.
+ * Методы потокобезопасны и требуют действия чтения только для разрешения классов.
+ */
+public class ExampleDataResolver {
+
+    //region Поля
+    /**
+     * Максимальная глубина вложенности создаваемых значений
+     */
+    public static final int MAX_DEPTH = 3;
+    /**
+     * Предел размера кэша, при превышении которого кэш очищается
+     */
+    private static final int MAX_SIZE = 4096;
+    /**
+     * Известные типы без обращения к PSI: полное имя -> пример значения
+     */
+    private static final Map<String, ExampleData> KNOWN_TYPES = Map.ofEntries(
+            Map.entry("java.lang.Boolean", new ExampleData("true", "true")),
+            Map.entry("java.lang.Byte", new ExampleData("0", "(byte) 0")),
+            Map.entry("java.lang.Short", new ExampleData("0", "(short) 0")),
+            Map.entry("java.lang.Integer", new ExampleData("0", "0")),
+            Map.entry("java.lang.Long", new ExampleData("0", "0L")),
+            Map.entry("java.lang.Float", new ExampleData("0.0f", "0.0f")),
+            Map.entry("java.lang.Double", new ExampleData("0.0", "0.0")),
+            Map.entry("java.lang.Character", new ExampleData("'a'", "'a'")),
+            Map.entry("java.lang.CharSequence", new ExampleData("exampleString", "\"exampleString\"")),
+            Map.entry("java.lang.Object", new ExampleData(null, "new Object()")),
+            Map.entry("java.math.BigDecimal", new ExampleData("1", "java.math.BigDecimal.ONE")),
+            Map.entry("java.math.BigInteger", new ExampleData("1", "java.math.BigInteger.ONE")),
+            Map.entry("java.time.LocalDate", new ExampleData("2024-01-01", "java.time.LocalDate.of(2024, 1, 1)")),
+            Map.entry("java.time.LocalDateTime", new ExampleData("2024-01-01T00:00", "java.time.LocalDateTime.of(2024, 1, 1, 0, 0)")),
+            Map.entry("java.time.Duration", new ExampleData("PT1S", "java.time.Duration.ofSeconds(1)")),
+            Map.entry("java.util.UUID", new ExampleData("00000000-0000-0000-0000-000000000001", "new java.util.UUID(0, 1)"))
+    );
+    private final TypeCategoryCache typeCategories;
+    private final Map<String, ExampleData> cache = new ConcurrentHashMap<>();
+    private final GenerationMetrics metrics;
+    //endregion
+
+    //region Конструкторы
+    public ExampleDataResolver(TypeCategoryCache typeCategories) {
+        this(typeCategories, new GenerationMetrics());
+    }
+
+    public ExampleDataResolver(TypeCategoryCache typeCategories, GenerationMetrics metrics) {
+        this.typeCategories = typeCategories;
+        this.metrics = metrics;
+    }
+    //endregion
+
+    //region Методы
+    public ExampleData resolve(PsiType psiType) {
+        return this.resolve(psiType, psiType.getCanonicalText(), null);
+    }
+
+    /**
+     * Пример значения типа, запись которого уже получена из {@link TypeCategoryCache}: текст типа берется
+     * из записи, а повторное обращение к кэшу типов не учитывается в метриках дважды
+     */
+    public ExampleData resolve(PsiType psiType, TypeCategoryCache.CachedType type) {
+        return this.resolve(psiType, type.canonicalText(), type);
+    }
+
+    private ExampleData resolve(PsiType psiType, String canonicalText, TypeCategoryCache.CachedType type) {
+        ExampleData data = this.cache.get(canonicalText);
+        if (data != null) {
+            this.metrics.increment(GenerationMetrics.Counter.EXAMPLE_CACHE_HITS);
+        } else {
+            this.metrics.increment(GenerationMetrics.Counter.EXAMPLE_CACHE_MISSES);
+            data = this.resolve(psiType, type != null ? type : this.typeCategories.resolve(psiType), 0);
+            this.put(canonicalText, data);
+        }
+        return data;
+    }
+
+    public int size() {
+        return this.cache.size();
+    }
+
+    private ExampleData resolve(PsiType psiType, TypeCategoryCache.CachedType type, int depth) {
+        //region Примитивы и строка
+        TypeCategory category = type.category();
+        if (category == TypeCategory.VOID) return ExampleData.NULL;
+        if (category != TypeCategory.OBJECT)
+            return new ExampleData(category.getExampleData(false), getExpression(category));
+        //endregion
+        String erasedText = erase(type.canonicalText());
+        ExampleData known = KNOWN_TYPES.get(erasedText);
+        if (known != null) return known;
+        if (depth >= MAX_DEPTH) return ExampleData.NULL;
+
+        if (psiType instanceof PsiArrayType arrayType)
+            return this.resolveArray(arrayType, erasedText, depth);
+        if (psiType instanceof PsiClassType classType)
+            return this.resolveClass(classType, type.psiClass(), erasedText, depth);
+        return ExampleData.NULL;
+    }
+
+    /**
+     * Значение вложенного типа: из кэша, если тип уже встречался на той же глубине
+     */
+    private ExampleData resolveNested(PsiType psiType, int depth) {
+        return this.resolveNested(psiType, this.typeCategories.resolve(psiType), depth);
+    }
+
+    private ExampleData resolveNested(PsiType psiType, TypeCategoryCache.CachedType type, int depth) {
+        String key = type.canonicalText() + "#" + depth;
+        ExampleData data = this.cache.get(key);
+        if (data == null) {
+            data = this.resolve(psiType, type, depth);
+            this.put(key, data);
+        }
+        return data;
+    }
+
+    private void put(String key, ExampleData data) {
+        if (this.cache.size() >= MAX_SIZE) this.cache.clear();
+        this.cache.put(key, data);
+    }
+
+    private ExampleData resolveArray(PsiArrayType arrayType, String erasedText, int depth) {
+        PsiType componentType = arrayType.getComponentType();
+        TypeCategoryCache.CachedType type = this.typeCategories.resolve(componentType);
+        // Массив переменной типа создать нельзя
+        if (type.psiClass() instanceof PsiTypeParameter)
+            return ExampleData.NULL;
+        ExampleData component = this.resolveNested(componentType, type, depth + 1);
+        String elements = component == ExampleData.NULL ? "" : component.expression();
+        return new ExampleData(null, "new " + erasedText + "{" + elements + "}");
+    }
+
+    private ExampleData resolveClass(PsiClassType classType, PsiClass psiClass, String erasedText, int depth) {
+        PsiType[] typeArguments = classType.getParameters();
+        //region Коллекции и Optional
+        switch (erasedText) {
+            case "java.util.List":
+            case "java.util.Collection":
+            case "java.lang.Iterable":
+                return this.createContainer("java.util.List.of", typeArguments, 1, depth);
+            case "java.util.Set":
+                return this.createContainer("java.util.Set.of", typeArguments, 1, depth);
+            case "java.util.Map":
+                return this.createContainer("java.util.Map.of", typeArguments, 2, depth);
+            case "java.util.stream.Stream":
+                return this.createContainer("java.util.stream.Stream.of", typeArguments, 1, depth);
+            case "java.util.Optional":
+                ExampleData container = this.createContainer("java.util.Optional.of", typeArguments, 1, depth);
+                return container.expression().equals("java.util.Optional.of()")
+                        ? new ExampleData(null, "java.util.Optional.empty()")
+                        : container;
+            default:
+                break;
+        }
+        //endregion
+        if (psiClass == null || psiClass instanceof PsiTypeParameter || psiClass.getQualifiedName() == null)
+            return ExampleData.NULL;
+        String qualifiedName = psiClass.getQualifiedName();
+        if (psiClass.isEnum())
+            return this.resolveEnum(psiClass, qualifiedName);
+        if (psiClass.isInterface() || psiClass.hasModifierProperty(PsiModifier.ABSTRACT))
+            return ExampleData.NULL;
+        // Внутренний нестатический класс требует экземпляра внешнего
+        if (psiClass.getContainingClass() != null && !psiClass.hasModifierProperty(PsiModifier.STATIC) && !psiClass.isRecord())
+            return ExampleData.NULL;
+
+        String constructorName = "new " + qualifiedName + (typeArguments.length > 0 ? "<>" : "");
+        if (psiClass.isRecord()) {
+            PsiRecordComponent[] components = psiClass.getRecordComponents();
+            PsiType[] types = new PsiType[components.length];
+            for (int i = 0; i < components.length; i++)
+                types[i] = components[i].getType();
+            return new ExampleData(null, this.createCall(constructorName, types, depth));
+        }
+        PsiMethod constructor = this.findSimplestConstructor(psiClass);
+        if (constructor == null)
+            return psiClass.getConstructors().length == 0 ? new ExampleData(null, constructorName + "()") : ExampleData.NULL;
+        PsiParameter[] parameters = constructor.getParameterList().getParameters();
+        PsiType[] types = new PsiType[parameters.length];
+        for (int i = 0; i < parameters.length; i++)
+            types[i] = parameters[i].getType();
+        return new ExampleData(null, this.createCall(constructorName, types, depth));
+    }
+
+    private ExampleData resolveEnum(PsiClass psiClass, String qualifiedName) {
+        for (PsiField field : psiClass.getFields()) {
+            if (field instanceof PsiEnumConstant)
+                return new ExampleData(field.getName(), qualifiedName + "." + field.getName());
+        }
+        return ExampleData.NULL;
+    }
+
+    /**
+     * Непубличный конструктор недоступен из теста, если тест находится в другом пакете, поэтому
+     * выбирается доступный конструктор с наименьшим числом параметров
+     */
+    private PsiMethod findSimplestConstructor(PsiClass psiClass) {
+        PsiMethod simplest = null;
+        for (PsiMethod constructor : psiClass.getConstructors()) {
+            if (constructor.hasModifierProperty(PsiModifier.PRIVATE)) continue;
+            if (simplest == null || constructor.getParameterList().getParametersCount() < simplest.getParameterList().getParametersCount())
+                simplest = constructor;
+        }
+        return simplest;
+    }
+
+    /**
+     * Фабричный вызов контейнера с примерами элементов. Контейнеры не принимают null,
+     * поэтому при неизвестном типе элемента создается пустой контейнер.
+     */
+    private ExampleData createContainer(String factory, PsiType[] typeArguments, int arity, int depth) {
+        if (typeArguments.length != arity) return new ExampleData(null, factory + "()");
+        StringJoiner arguments = new StringJoiner(", ", factory + "(", ")");
+        for (PsiType typeArgument : typeArguments) {
+            ExampleData element = this.resolveNested(typeArgument, depth + 1);
+            if (element == ExampleData.NULL) return new ExampleData(null, factory + "()");
+            arguments.add(element.expression());
+        }
+        return new ExampleData(null, arguments.toString());
+    }
+
+    private String createCall(String name, PsiType[] types, int depth) {
+        StringJoiner arguments = new StringJoiner(", ", name + "(", ")");
+        for (PsiType type : types)
+            arguments.add(this.resolveNested(type, depth + 1).expression());
+        return arguments.toString();
+    }
+
+    /**
+     * Выражение примитива с явным типом: литерал {@code 0} не сужается до short/byte при передаче
+     * в конструктор или {@code Arguments.of()}, а long передается без неявного расширения
+     */
+    private static String getExpression(TypeCategory category) {
+        switch (category) {
+            case LONG:
+                return "0L";
+            case SHORT:
+                return "(short) 0";
+            case BYTE:
+                return "(byte) 0";
+            default:
+                return category.getExampleData(true);
+        }
+    }
+
+    /**
+     * Убирает аргументы типа: {@code java.util.Map<K, java.util.List<V>>[] -> java.util.Map[]}
+     */
+    private static String erase(String canonicalText) {
+        if (canonicalText.indexOf('<') < 0) return canonicalText;
+        StringBuilder sb = new StringBuilder(canonicalText.length());
+        int level = 0;
+        for (int i = 0; i < canonicalText.length(); i++) {
+            char c = canonicalText.charAt(i);
+            if (c == '<') level++;
+            else if (c == '>') level--;
+            else if (level == 0) sb.append(c);
+        }
+        return sb.toString();
+    }
+    //endregion
+}
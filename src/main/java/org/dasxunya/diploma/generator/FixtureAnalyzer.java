@@ -0,0 +1,146 @@
+package org.dasxunya.diploma.generator;
+
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiClassType;
+import com.intellij.psi.PsiField;
+import com.intellij.psi.PsiMethod;
+import com.intellij.psi.PsiModifier;
+import com.intellij.psi.PsiParameter;
+import com.intellij.psi.PsiPrimitiveType;
+import com.intellij.psi.PsiRecordComponent;
+import com.intellij.psi.PsiType;
+import org.dasxunya.diploma.constants.Constants;
+import org.dasxunya.diploma.generator.model.MethodModel;
+import org.dasxunya.diploma.generator.model.ParameterModel;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Выбор конструктора и жизненного цикла объекта тестируемого класса в тестирующем классе.
+ * <p>
+ * Объект создается самым дешевым доступным конструктором: с наименьшим числом параметров, при равенстве - с наименьшим
+ * числом параметров объектных типов, примеры которых сами создаются конструкторами. Фактически неизменяемый объект
+ * (все поля экземпляра {@code final} и неизменяемых типов) и дорогой в создании объект (от {@link #MANY_PARAMETERS} параметров конструктора
+ * или параметры ввода-вывода: потоки, файлы, соединения) создаются один раз на тестирующий класс
+ * в {@code @BeforeAll} при {@code @TestInstance(PER_CLASS)}, а не перед каждым тестом и строкой данных.
+ */
+public final class FixtureAnalyzer {
+
+    //region Поля
+    /**
+     * Количество параметров конструктора, начиная с которого объект считается дорогим в создании
+     */
+    private static final int MANY_PARAMETERS = 5;
+    /**
+     * Типы параметров, создание которых означает ввод-вывод или внешние ресурсы
+     */
+    private static final Set<String> IO_TYPES = Set.of(
+            "InputStream", "OutputStream", "Reader", "Writer", "BufferedReader", "BufferedWriter",
+            "File", "Path", "RandomAccessFile", "FileChannel", "SocketChannel", "Socket", "ServerSocket",
+            "URL", "URLConnection", "HttpClient", "Connection", "DataSource", "ExecutorService");
+    /**
+     * Неизменяемые типы полей, кроме примитивов, перечислений и записей
+     */
+    private static final Set<String> IMMUTABLE_TYPES = Set.of(
+            "java.lang.String", "java.lang.Boolean", "java.lang.Byte", "java.lang.Short", "java.lang.Integer",
+            "java.lang.Long", "java.lang.Float", "java.lang.Double", "java.lang.Character",
+            "java.math.BigDecimal", "java.math.BigInteger", "java.time.LocalDate", "java.time.LocalTime",
+            "java.time.LocalDateTime", "java.time.Instant", "java.time.Duration", "java.util.UUID");
+    //endregion
+
+    //region Конструкторы
+    private FixtureAnalyzer() {
+    }
+    //endregion
+
+    //region Методы
+    /**
+     * Выбирает самый дешевый конструктор. Приватные конструкторы недоступны из теста и выбираются,
+     * только если других нет. Требует доступа на чтение PSI.
+     *
+     * @param psiClass Тестируемый класс
+     * @return Конструктор, null - конструкторы не объявлены
+     */
+    public static PsiMethod selectConstructor(PsiClass psiClass) {
+        PsiMethod cheapest = null;
+        boolean isCheapestAccessible = false;
+        for (PsiMethod constructor : psiClass.getConstructors()) {
+            boolean isAccessible = !constructor.hasModifierProperty(PsiModifier.PRIVATE);
+            if (cheapest == null
+                || isAccessible && !isCheapestAccessible
+                || isAccessible == isCheapestAccessible && isCheaper(constructor, cheapest)) {
+                cheapest = constructor;
+                isCheapestAccessible = isAccessible;
+            }
+        }
+        return cheapest;
+    }
+
+    private static boolean isCheaper(PsiMethod constructor, PsiMethod other) {
+        PsiParameter[] parameters = constructor.getParameterList().getParameters();
+        PsiParameter[] otherParameters = other.getParameterList().getParameters();
+        if (parameters.length != otherParameters.length) return parameters.length < otherParameters.length;
+        return countObjectParameters(parameters) < countObjectParameters(otherParameters);
+    }
+
+    /**
+     * Количество параметров, кроме примитивов и строк
+     */
+    private static int countObjectParameters(PsiParameter[] parameters) {
+        int count = 0;
+        for (PsiParameter parameter : parameters) {
+            PsiType type = parameter.getType();
+            if (!(type instanceof PsiPrimitiveType) && !type.getPresentableText().equalsIgnoreCase(Constants.Strings.Types.stringType))
+                count++;
+        }
+        return count;
+    }
+
+    /**
+     * Фактически неизменяемый класс: все поля экземпляра {@code final} и имеют неизменяемые типы - примитивы,
+     * строки, обертки и другие значения из {@link #IMMUTABLE_TYPES}, перечисления и записи из таких полей.
+     * Поле {@code final List} или массив позволяют изменять общий объект, поэтому класс с ними изменяемый.
+     * Требует доступа на чтение PSI.
+     */
+    public static boolean isImmutable(PsiClass psiClass) {
+        return isImmutable(psiClass, new HashSet<>());
+    }
+
+    private static boolean isImmutable(PsiClass psiClass, Set<PsiClass> visited) {
+        // Рекурсивная ссылка на уже проверяемый класс не делает его изменяемым
+        if (!visited.add(psiClass)) return true;
+        for (PsiField field : psiClass.getFields()) {
+            if (field.hasModifierProperty(PsiModifier.STATIC)) continue;
+            if (!field.hasModifierProperty(PsiModifier.FINAL) || !isImmutableType(field.getType(), visited))
+                return false;
+        }
+        if (psiClass.isRecord()) {
+            for (PsiRecordComponent component : psiClass.getRecordComponents()) {
+                if (!isImmutableType(component.getType(), visited)) return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isImmutableType(PsiType type, Set<PsiClass> visited) {
+        if (type instanceof PsiPrimitiveType) return true;
+        if (!(type instanceof PsiClassType classType)) return false;
+        PsiClass psiClass = classType.resolve();
+        if (psiClass == null) return false;
+        if (IMMUTABLE_TYPES.contains(psiClass.getQualifiedName())) return true;
+        return (psiClass.isEnum() || psiClass.isRecord()) && isImmutable(psiClass, visited);
+    }
+
+    /**
+     * Дорогой в создании объект: много параметров конструктора или параметры ввода-вывода
+     */
+    public static boolean isCostly(MethodModel constructor) {
+        if (constructor.parameters().size() >= MANY_PARAMETERS) return true;
+        for (ParameterModel parameter : constructor.parameters()) {
+            if (IO_TYPES.contains(SharedStateAnalyzer.getErasedName(parameter.type()))) return true;
+        }
+        return false;
+    }
+    //endregion
+}
@@ -0,0 +1,22 @@
+package org.dasxunya.diploma.generator;
+
+import com.intellij.psi.PsiDirectory;
+
+import java.util.Map;
+
+/**
+ * Подготовленный тестирующий класс, ожидающий записи в директорию.
+ * Формируется в фоновом потоке под действием чтения, записывается на EDT.
+ *
+ * @param directory     Директория, в которую будет добавлен файл
+ * @param fileName      Имя файла без расширения
+ * @param content       Текст тестирующего класса
+ * @param dataFiles     Файлы данных {@code @CsvFileSource}: имя файла в пакете тестирующего класса -> содержимое
+ * @param sourceFileUrl URL исходного файла тестируемого класса
+ * @param indexEntries  Записи индекса сгенерированных тестов
+ * @param concurrent    Тесты класса выполняются параллельно, в ресурсах нужны настройки параллельного выполнения
+ */
+public record GeneratedTestFile(PsiDirectory directory, String fileName, String content, Map<String, String> dataFiles,
+                                String sourceFileUrl, Map<String, String> indexEntries,
+                                boolean concurrent) implements GenerationResult {
+}
@@ -0,0 +1,127 @@
+package org.dasxunya.diploma.generator;
+
+import com.intellij.openapi.components.PersistentStateComponent;
+import com.intellij.openapi.components.Service;
+import com.intellij.openapi.components.State;
+import com.intellij.openapi.components.Storage;
+import com.intellij.openapi.components.StoragePathMacros;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiMethod;
+import com.intellij.psi.PsiSubstitutor;
+import com.intellij.psi.PsiType;
+import com.intellij.psi.util.MethodSignature;
+import org.dasxunya.diploma.constants.TestType;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Сохраняемый между перезапусками IDE индекс сгенерированных тестов проекта.
+ * Для каждого исходного файла хранит соответствие ключа сигнатуры метода тестирующему методу,
+ * что позволяет решить, нужно ли генерировать тест, без разбора тестирующего класса.
+ * Записи исходного файла удаляются при его изменении (см. {@link GeneratedTestsIndexListener}).
+ */
+@Service(Service.Level.PROJECT)
+@State(name = "GeneratedTestsIndex", storages = @Storage(StoragePathMacros.WORKSPACE_FILE))
+public final class GeneratedTestsIndex implements PersistentStateComponent<GeneratedTestsIndex.State> {
+
+    //region Поля
+    /**
+     * Разделитель URL файла и ключа сигнатуры в сохраняемом состоянии
+     */
+    private static final char SEPARATOR = '#';
+    /**
+     * URL исходного файла -> (ключ сигнатуры метода -> тестирующий метод в виде "Класс.метод")
+     */
+    private final Map<String, Map<String, String>> files = new ConcurrentHashMap<>();
+    //endregion
+
+    /**
+     * Сохраняемое состояние индекса
+     */
+    public static class State {
+        public Map<String, String> tests = new TreeMap<>();
+    }
+
+    public static GeneratedTestsIndex getInstance(Project project) {
+        return project.getService(GeneratedTestsIndex.class);
+    }
+
+    //region Методы
+    /**
+     * Ключ сигнатуры метода: имя, канонические типы параметров и тип теста
+     */
+    public static String getSignatureKey(PsiMethod psiMethod, TestType testType) {
+        MethodSignature signature = psiMethod.getSignature(PsiSubstitutor.EMPTY);
+        StringBuilder sb = new StringBuilder(signature.getName()).append('(');
+        PsiType[] parameterTypes = signature.getParameterTypes();
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (i > 0) sb.append(',');
+            sb.append(parameterTypes[i].getCanonicalText());
+        }
+        return sb.append("):").append(testType.name()).toString();
+    }
+
+    /**
+     * URL файла, содержащего элемент, null для элементов вне файловой системы
+     */
+    public static String getFileUrl(PsiElement psiElement) {
+        PsiFile psiFile = psiElement.getContainingFile();
+        VirtualFile virtualFile = psiFile != null ? psiFile.getVirtualFile() : null;
+        return virtualFile != null ? virtualFile.getUrl() : null;
+    }
+
+    public String getTestMethod(String fileUrl, String signatureKey) {
+        Map<String, String> tests = this.files.get(fileUrl);
+        return tests != null ? tests.get(signatureKey) : null;
+    }
+
+    public void put(String fileUrl, Map<String, String> tests) {
+        if (tests.isEmpty()) return;
+        this.files.computeIfAbsent(fileUrl, url -> new ConcurrentHashMap<>()).putAll(tests);
+    }
+
+    public boolean isEmpty() {
+        return this.files.isEmpty();
+    }
+
+    public void invalidate(String fileUrl) {
+        this.files.remove(fileUrl);
+    }
+
+    /**
+     * Удаляет записи всех файлов директории и ее поддиректорий
+     */
+    public void invalidateDirectory(String directoryUrl) {
+        String prefix = directoryUrl.endsWith("/") ? directoryUrl : directoryUrl + "/";
+        this.files.keySet().removeIf(url -> url.startsWith(prefix));
+    }
+
+    @Override
+    public State getState() {
+        State state = new State();
+        for (Map.Entry<String, Map<String, String>> file : this.files.entrySet()) {
+            for (Map.Entry<String, String> test : file.getValue().entrySet())
+                state.tests.put(file.getKey() + SEPARATOR + test.getKey(), test.getValue());
+        }
+        return state;
+    }
+
+    @Override
+    public void loadState(State state) {
+        this.files.clear();
+        for (Map.Entry<String, String> test : state.tests.entrySet()) {
+            // Ключ сигнатуры не содержит разделителя, поэтому делим по последнему вхождению
+            String key = test.getKey();
+            int separatorIndex = key.lastIndexOf(SEPARATOR);
+            if (separatorIndex <= 0) continue;
+            this.files.computeIfAbsent(key.substring(0, separatorIndex), url -> new ConcurrentHashMap<>())
+                    .put(key.substring(separatorIndex + 1), test.getValue());
+        }
+    }
+    //endregion
+}
@@ -0,0 +1,49 @@
+package org.dasxunya.diploma.generator;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.events.VFileContentChangeEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileDeleteEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileMoveEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFilePropertyChangeEvent;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+
+/**
+ * Удаляет из {@link GeneratedTestsIndex} записи исходных файлов, которые были изменены,
+ * удалены, перемещены или переименованы.
+ */
+public class GeneratedTestsIndexListener implements BulkFileListener {
+
+    //region Поля
+    private final Project project;
+    //endregion
+
+    //region Конструкторы
+    public GeneratedTestsIndexListener(Project project) {
+        this.project = project;
+    }
+    //endregion
+
+    // Записи удаляются до применения событий, пока файлы доступны по старым URL
+    @Override
+    public void before(@NotNull List<? extends VFileEvent> events) {
+        GeneratedTestsIndex index = GeneratedTestsIndex.getInstance(this.project);
+        if (index.isEmpty()) return;
+        for (VFileEvent event : events) {
+            boolean isChange = event instanceof VFileContentChangeEvent
+                               || event instanceof VFileDeleteEvent
+                               || event instanceof VFileMoveEvent
+                               || event instanceof VFilePropertyChangeEvent propertyChange && propertyChange.isRename();
+            VirtualFile file = event.getFile();
+            if (!isChange || file == null) continue;
+            if (file.isDirectory())
+                index.invalidateDirectory(file.getUrl());
+            else
+                index.invalidate(file.getUrl());
+        }
+    }
+}
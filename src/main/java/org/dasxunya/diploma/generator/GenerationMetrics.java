@@ -0,0 +1,206 @@
+package org.dasxunya.diploma.generator;
+
+import com.intellij.openapi.diagnostic.Logger;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Потокобезопасные метрики одного запуска генерации: время по фазам и счетчики.
+ * <p>
+ * Время фаз не пересекается: разрешение типов вычитается из извлечения PSI, поэтому сумма фаз
+ * показывает, куда уходит время пакетной генерации. Сводка пишется в {@code idea.log} после записи файлов
+ * и выводится в консоль при генерации без IDE. При {@code -Dtestgen.jfr=true} каждый замер, начатый
+ * {@link #start(Phase)}, дополнительно фиксируется событием JFR {@code org.dasxunya.diploma.GenerationPhase}
+ * с началом и концом замера.
+ */
+public final class GenerationMetrics {
+
+    //region Поля
+    private static final Logger LOG = Logger.getInstance(GenerationMetrics.class);
+    /**
+     * Системное свойство, включающее события JFR
+     */
+    public static final String JFR_PROPERTY = "testgen.jfr";
+    private final LongAdder[] phaseNanos = createAdders(Phase.values().length);
+    private final LongAdder[] phaseCalls = createAdders(Phase.values().length);
+    private final LongAdder[] counters = createAdders(Counter.values().length);
+    private volatile boolean isJfrEvents = Boolean.getBoolean(JFR_PROPERTY);
+    //endregion
+
+    /**
+     * Фазы генерации
+     */
+    public enum Phase {
+        PSI_EXTRACTION("Извлечение PSI"),
+        TYPE_RESOLUTION("Разрешение типов"),
+        RENDERING("Рендеринг"),
+        FILE_WRITE("Запись файлов"),
+        FORMATTING("Форматирование");
+
+        private final String label;
+
+        Phase(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    /**
+     * Счетчики генерации
+     */
+    public enum Counter {
+        CLASSES("классов"),
+        METHODS("методов"),
+        COVERED_METHODS("пропущено покрытых методов"),
+        CHARACTERS("символов"),
+        FILES("файлов"),
+        TYPE_CACHE_HITS("попаданий в кэш типов"),
+        TYPE_CACHE_MISSES("промахов кэша типов"),
+        EXAMPLE_CACHE_HITS("попаданий в кэш примеров"),
+        EXAMPLE_CACHE_MISSES("промахов кэша примеров");
+
+        private final String label;
+
+        Counter(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    //region Сеттеры/Геттеры
+    public void setJfrEvents(boolean jfrEvents) {
+        isJfrEvents = jfrEvents;
+    }
+
+    public long getNanos(Phase phase) {
+        return this.phaseNanos[phase.ordinal()].sum();
+    }
+
+    public long getCalls(Phase phase) {
+        return this.phaseCalls[phase.ordinal()].sum();
+    }
+
+    public long get(Counter counter) {
+        return this.counters[counter.ordinal()].sum();
+    }
+    //endregion
+
+    //region Методы
+    private static LongAdder[] createAdders(int count) {
+        LongAdder[] adders = new LongAdder[count];
+        for (int i = 0; i < count; i++)
+            adders[i] = new LongAdder();
+        return adders;
+    }
+
+    /**
+     * Начало замера фазы. При включенных событиях JFR начинает событие фазы.
+     *
+     * @return Замер для {@link #stop(Measurement)}
+     */
+    public Measurement start(Phase phase) {
+        GenerationPhaseEvent event = null;
+        if (this.isJfrEvents) {
+            event = new GenerationPhaseEvent();
+            if (event.isEnabled()) {
+                event.phase = phase.name();
+                event.begin();
+            } else {
+                event = null;
+            }
+        }
+        return new Measurement(phase, System.nanoTime(), event);
+    }
+
+    /**
+     * Завершает замер фазы, начатый {@link #start(Phase)}
+     *
+     * @return Измеренное время в наносекундах
+     */
+    public long stop(Measurement measurement) {
+        return this.stop(measurement, 0);
+    }
+
+    /**
+     * Завершает замер фазы, исключая из него время вложенных фаз, учтенных отдельно
+     *
+     * @param excludedNanos Время вложенных фаз в наносекундах
+     * @return Время фазы без вложенных фаз
+     */
+    public long stop(Measurement measurement, long excludedNanos) {
+        long nanos = System.nanoTime() - measurement.start - excludedNanos;
+        this.record(measurement.phase, nanos);
+        GenerationPhaseEvent event = measurement.event;
+        if (event != null) {
+            event.end();
+            event.elapsed = nanos;
+            event.commit();
+        }
+        return nanos;
+    }
+
+    /**
+     * Добавляет к фазе уже измеренное время без события JFR
+     */
+    public void record(Phase phase, long nanos) {
+        this.phaseNanos[phase.ordinal()].add(nanos);
+        this.phaseCalls[phase.ordinal()].increment();
+    }
+
+    public void increment(Counter counter) {
+        this.counters[counter.ordinal()].increment();
+    }
+
+    public void add(Counter counter, long value) {
+        this.counters[counter.ordinal()].add(value);
+    }
+
+    public void reset() {
+        for (LongAdder adder : this.phaseNanos) adder.reset();
+        for (LongAdder adder : this.phaseCalls) adder.reset();
+        for (LongAdder adder : this.counters) adder.reset();
+    }
+
+    /**
+     * Сводка метрик: счетчики, затем время и число замеров каждой фазы
+     */
+    public String getSummary() {
+        StringBuilder sb = new StringBuilder("Генерация тестов:");
+        for (Counter counter : Counter.values())
+            sb.append(counter.ordinal() == 0 ? " " : ", ").append(counter.getLabel()).append(' ').append(this.get(counter));
+        for (Phase phase : Phase.values()) {
+            sb.append(String.format("%n  %s: %.1f мс (%d)", phase.getLabel(),
+                    this.getNanos(phase) / 1_000_000.0, this.getCalls(phase)));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Записывает сводку в журнал IDE
+     */
+    public void log() {
+        LOG.info(this.getSummary());
+    }
+    //endregion
+
+    /**
+     * Начатый замер фазы: отметка времени и событие JFR, если события включены
+     */
+    public static final class Measurement {
+        private final Phase phase;
+        private final long start;
+        private final GenerationPhaseEvent event;
+
+        private Measurement(Phase phase, long start, GenerationPhaseEvent event) {
+            this.phase = phase;
+            this.start = start;
+            this.event = event;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package org.dasxunya.diploma.generator;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Событие JFR одной фазы генерации
+ *
+ * @see GenerationMetrics
+ */
+@Name("org.dasxunya.diploma.GenerationPhase")
+@Label("Test Generation Phase")
+@Category("Test Generator")
+class GenerationPhaseEvent extends Event {
+
+    @Label("Phase")
+    String phase;
+
+    /**
+     * Время фазы без вложенных фаз; длительность события включает и их
+     */
+    @Label("Elapsed")
+    @Timespan(Timespan.NANOSECONDS)
+    long elapsed;
+}
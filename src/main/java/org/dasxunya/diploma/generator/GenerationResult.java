@@ -0,0 +1,20 @@
+package org.dasxunya.diploma.generator;
+
+import java.util.Map;
+
+/**
+ * Результат подготовки тестов, который записывается в проект на EDT:
+ * новый тестовый файл либо изменение уже существующего тестирующего класса
+ */
+public sealed interface GenerationResult permits GeneratedTestFile, TestClassPatch {
+
+    /**
+     * URL исходного файла тестируемого класса, null для файлов вне файловой системы
+     */
+    String sourceFileUrl();
+
+    /**
+     * Записи для {@link GeneratedTestsIndex}: ключ сигнатуры метода -> тестирующий метод
+     */
+    Map<String, String> indexEntries();
+}
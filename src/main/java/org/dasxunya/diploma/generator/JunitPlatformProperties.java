@@ -0,0 +1,62 @@
+package org.dasxunya.diploma.generator;
+
+import org.dasxunya.diploma.constants.Constants;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.Properties;
+
+/**
+ * Настройки параллельного выполнения в {@code junit-platform.properties} корня ресурсов тестов.
+ * <p>
+ * Параллельное выполнение включается, но по умолчанию тесты и классы выполняются в одном потоке
+ * (режим классов по умолчанию совпадает с режимом тестов), поэтому параллельно выполняются только классы
+ * с {@code @Execution(ExecutionMode.CONCURRENT)}, а тесты без аннотации продолжают выполняться последовательно.
+ * Число потоков подбирается по числу ядер.
+ */
+public final class JunitPlatformProperties {
+
+    //region Поля
+    public static final String FILE_NAME = "junit-platform.properties";
+    /**
+     * Ключи и значения настроек в порядке записи
+     */
+    private static final String[][] PARALLEL_SETTINGS = {
+            {"junit.jupiter.execution.parallel.enabled", "true"},
+            {"junit.jupiter.execution.parallel.mode.default", "same_thread"},
+            {"junit.jupiter.execution.parallel.config.strategy", "dynamic"}
+    };
+    //endregion
+
+    //region Конструкторы
+    private JunitPlatformProperties() {
+    }
+    //endregion
+
+    //region Методы
+    /**
+     * Дописывает в файл настроек отсутствующие настройки параллельного выполнения.
+     * Уже заданные значения, комментарии и порядок строк сохраняются.
+     *
+     * @param content Текущее содержимое файла, пустая строка - файла нет
+     * @return Новое содержимое файла, совпадает с текущим, если все настройки уже заданы
+     */
+    public static String merge(String content) {
+        Properties existing = new Properties();
+        try {
+            existing.load(new StringReader(content));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        StringBuilder sb = new StringBuilder(content);
+        for (String[] setting : PARALLEL_SETTINGS) {
+            if (existing.containsKey(setting[0])) continue;
+            if (sb.length() > 0 && sb.charAt(sb.length() - 1) != '\n')
+                sb.append(Constants.Strings.Code.newLine);
+            sb.append(setting[0]).append('=').append(setting[1]).append(Constants.Strings.Code.newLine);
+        }
+        return sb.toString();
+    }
+    //endregion
+}
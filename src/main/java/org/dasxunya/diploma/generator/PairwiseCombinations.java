@@ -0,0 +1,154 @@
+package org.dasxunya.diploma.generator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Попарное покрытие (all-pairs) значений параметров по алгоритму IPO.
+ * <p>
+ * Вместо полного декартова произведения строится набор строк, в котором каждая пара значений любых двух
+ * параметров встречается хотя бы один раз. Для {@code n} параметров по {@code k} значений число строк растет
+ * примерно как {@code k^2 * log(n)}, а не {@code k^n}: восемь параметров по пять значений дают несколько десятков
+ * строк вместо 390625.
+ * <p>
+ * Строки строятся постепенно: сначала все пары двух параметров с наибольшим числом значений, затем каждый
+ * следующий параметр добавляется к существующим строкам жадным выбором значения, покрывающего больше всего
+ * непокрытых пар (горизонтальный рост), а оставшиеся пары дописываются в свободные позиции строк или в новые
+ * строки (вертикальный рост). Результат детерминирован.
+ */
+public final class PairwiseCombinations {
+
+    //region Поля
+    /**
+     * Позиция строки, значение которой еще не выбрано
+     */
+    private static final int ANY = -1;
+    //endregion
+
+    //region Конструкторы
+    private PairwiseCombinations() {
+    }
+    //endregion
+
+    //region Методы
+    /**
+     * Строит строки попарного покрытия
+     *
+     * @param sizes Количество значений каждого параметра, не меньше 1
+     * @return Строки с индексами значений параметров, первая строка состоит из первых значений
+     */
+    public static List<int[]> generate(int[] sizes) {
+        // Параметры с большим числом значений обрабатываются первыми: их пары задают нижнюю границу числа строк
+        Integer[] order = new Integer[sizes.length];
+        for (int i = 0; i < order.length; i++)
+            order[i] = i;
+        Arrays.sort(order, (a, b) -> Integer.compare(sizes[b], sizes[a]));
+        int[] sortedSizes = new int[sizes.length];
+        for (int i = 0; i < order.length; i++)
+            sortedSizes[i] = sizes[order[i]];
+
+        List<int[]> rows = generateOrdered(sortedSizes);
+        for (int r = 0; r < rows.size(); r++) {
+            int[] sortedRow = rows.get(r);
+            int[] row = new int[sortedRow.length];
+            for (int i = 0; i < order.length; i++)
+                row[order[i]] = sortedRow[i];
+            rows.set(r, row);
+        }
+        return rows;
+    }
+
+    private static List<int[]> generateOrdered(int[] sizes) {
+        int count = sizes.length;
+        List<int[]> rows = new ArrayList<>();
+        if (count == 0) return rows;
+        if (count == 1) {
+            for (int value = 0; value < sizes[0]; value++)
+                rows.add(new int[]{value});
+            return rows;
+        }
+        //region Все пары двух первых параметров
+        for (int first = 0; first < sizes[0]; first++) {
+            for (int second = 0; second < sizes[1]; second++) {
+                int[] row = new int[count];
+                Arrays.fill(row, ANY);
+                row[0] = first;
+                row[1] = second;
+                rows.add(row);
+            }
+        }
+        //endregion
+        for (int parameter = 2; parameter < count; parameter++) {
+            // uncovered[j][a][b] - пара (значение a параметра j, значение b текущего параметра) не покрыта
+            boolean[][][] uncovered = new boolean[parameter][][];
+            for (int j = 0; j < parameter; j++) {
+                uncovered[j] = new boolean[sizes[j]][sizes[parameter]];
+                for (boolean[] values : uncovered[j])
+                    Arrays.fill(values, true);
+            }
+            growHorizontally(rows, sizes[parameter], parameter, uncovered);
+            growVertically(rows, count, parameter, uncovered);
+        }
+        for (int[] row : rows) {
+            for (int i = 0; i < count; i++) {
+                if (row[i] == ANY) row[i] = 0;
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Дополняет существующие строки значением параметра, покрывающим больше всего непокрытых пар
+     */
+    private static void growHorizontally(List<int[]> rows, int size, int parameter, boolean[][][] uncovered) {
+        for (int[] row : rows) {
+            int bestValue = 0;
+            int bestCovered = -1;
+            for (int value = 0; value < size; value++) {
+                int covered = 0;
+                for (int j = 0; j < parameter; j++) {
+                    if (row[j] != ANY && uncovered[j][row[j]][value]) covered++;
+                }
+                if (covered > bestCovered) {
+                    bestValue = value;
+                    bestCovered = covered;
+                }
+            }
+            row[parameter] = bestValue;
+            for (int j = 0; j < parameter; j++) {
+                if (row[j] != ANY) uncovered[j][row[j]][bestValue] = false;
+            }
+        }
+    }
+
+    /**
+     * Покрывает оставшиеся пары: значение записывается в свободную позицию строки с тем же значением
+     * текущего параметра, при ее отсутствии добавляется новая строка
+     */
+    private static void growVertically(List<int[]> rows, int count, int parameter, boolean[][][] uncovered) {
+        for (int j = 0; j < parameter; j++) {
+            for (int a = 0; a < uncovered[j].length; a++) {
+                for (int b = 0; b < uncovered[j][a].length; b++) {
+                    if (!uncovered[j][a][b]) continue;
+                    int[] target = null;
+                    for (int[] row : rows) {
+                        if (row[parameter] == b && row[j] == ANY) {
+                            target = row;
+                            break;
+                        }
+                    }
+                    if (target == null) {
+                        target = new int[count];
+                        Arrays.fill(target, ANY);
+                        target[parameter] = b;
+                        rows.add(target);
+                    }
+                    target[j] = a;
+                    uncovered[j][a][b] = false;
+                }
+            }
+        }
+    }
+    //endregion
+}
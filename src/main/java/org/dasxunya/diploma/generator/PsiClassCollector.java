@@ -0,0 +1,112 @@
+package org.dasxunya.diploma.generator;
+
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ModuleRootManager;
+import com.intellij.openapi.roots.ProjectFileIndex;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.*;
+import com.intellij.psi.search.GlobalSearchScope;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Сборщик классов для пакетной генерации тестов.
+ * Обходит выбранные в дереве проекта пакеты, директории, модули и файлы
+ * и собирает все найденные в них классы. Требует доступа на чтение PSI.
+ */
+public class PsiClassCollector {
+
+    //region Поля
+    private final Project project;
+    private final PsiManager psiManager;
+    private final ProjectFileIndex fileIndex;
+    /**
+     * Найденные классы в порядке обхода
+     */
+    private final Set<PsiClass> classes = new LinkedHashSet<>();
+    /**
+     * Уже обойденные директории, чтобы пересекающиеся выделения не обрабатывались повторно
+     */
+    private final Set<VirtualFile> visitedDirectories = new HashSet<>();
+    //endregion
+
+    //region Конструкторы
+    public PsiClassCollector(Project project) {
+        this.project = project;
+        this.psiManager = PsiManager.getInstance(project);
+        this.fileIndex = ProjectFileIndex.getInstance(project);
+    }
+    //endregion
+
+    //region Методы
+    public void add(PsiElement element) {
+        ProgressManager.checkCanceled();
+        if (element instanceof PsiClass psiClass) {
+            this.addClass(psiClass);
+        } else if (element instanceof PsiClassOwner psiFile) {
+            this.addFile(psiFile);
+        } else if (element instanceof PsiDirectory psiDirectory) {
+            this.addDirectory(psiDirectory);
+        } else if (element instanceof PsiPackage psiPackage) {
+            for (PsiDirectory psiDirectory : psiPackage.getDirectories(GlobalSearchScope.projectScope(this.project)))
+                this.addDirectory(psiDirectory);
+        }
+    }
+
+    public void add(VirtualFile file) {
+        if (file == null || !file.isValid()) return;
+        if (file.isDirectory()) {
+            PsiDirectory psiDirectory = this.psiManager.findDirectory(file);
+            if (psiDirectory != null) this.addDirectory(psiDirectory);
+        } else {
+            PsiFile psiFile = this.psiManager.findFile(file);
+            if (psiFile != null) this.add(psiFile);
+        }
+    }
+
+    /**
+     * Добавляет все классы из исходных (не тестовых) корней модуля
+     */
+    public void add(Module module) {
+        for (VirtualFile sourceRoot : ModuleRootManager.getInstance(module).getSourceRoots(false))
+            this.add(sourceRoot);
+    }
+
+    public List<PsiClass> getClasses() {
+        return new ArrayList<>(this.classes);
+    }
+
+    private void addClass(PsiClass psiClass) {
+        if (psiClass.getName() == null || psiClass.isAnnotationType()) return;
+        PsiFile psiFile = psiClass.getContainingFile();
+        if (psiFile == null || psiFile.getContainingDirectory() == null) return;
+        // Тесты для самих тестов не генерируются
+        VirtualFile virtualFile = psiFile.getVirtualFile();
+        if (virtualFile != null && this.fileIndex.isInTestSourceContent(virtualFile)) return;
+        this.classes.add(psiClass);
+    }
+
+    private void addFile(PsiClassOwner psiFile) {
+        for (PsiClass psiClass : psiFile.getClasses())
+            this.addClass(psiClass);
+    }
+
+    private void addDirectory(PsiDirectory psiDirectory) {
+        if (!this.visitedDirectories.add(psiDirectory.getVirtualFile())) return;
+        if (this.fileIndex.isInTestSourceContent(psiDirectory.getVirtualFile())) return;
+        for (PsiFile psiFile : psiDirectory.getFiles()) {
+            ProgressManager.checkCanceled();
+            if (psiFile instanceof PsiClassOwner classOwner)
+                this.addFile(classOwner);
+        }
+        for (PsiDirectory subdirectory : psiDirectory.getSubdirectories())
+            this.addDirectory(subdirectory);
+    }
+    //endregion
+}
@@ -0,0 +1,80 @@
+package org.dasxunya.diploma.generator;
+
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiCodeBlock;
+import com.intellij.psi.PsiEnumConstant;
+import com.intellij.psi.PsiField;
+import com.intellij.psi.PsiMethod;
+import com.intellij.psi.PsiModifier;
+import com.intellij.psi.PsiSynchronizedStatement;
+import com.intellij.psi.util.PsiTreeUtil;
+
+import java.util.Set;
+
+/**
+ * Поиск разделяемого изменяемого состояния тестируемого класса, при котором его тесты нельзя выполнять параллельно.
+ * <p>
+ * Разделяемым состоянием считаются статические поля без {@code final}, статические {@code final} коллекции,
+ * атомарные переменные и строковые буферы, одиночки (статические поля типа самого класса), а также использование
+ * {@code synchronized} в методах или блоках: класс рассчитан на общий доступ из нескольких потоков. Статические
+ * константы примитивов, строк и прочих объектов разделяемым состоянием не считаются. Проверяются только объявления
+ * самого класса, суперклассы и вызываемый код не анализируются.
+ */
+public final class SharedStateAnalyzer {
+
+    //region Поля
+    /**
+     * Типы, содержимое которых изменяется без присваивания полю
+     */
+    private static final Set<String> MUTABLE_TYPES = Set.of(
+            "Collection", "List", "ArrayList", "LinkedList", "Vector", "Stack", "CopyOnWriteArrayList",
+            "Set", "HashSet", "LinkedHashSet", "TreeSet", "Queue", "Deque", "ArrayDeque",
+            "Map", "HashMap", "LinkedHashMap", "TreeMap", "Hashtable", "Properties", "ConcurrentMap", "ConcurrentHashMap",
+            "AtomicBoolean", "AtomicInteger", "AtomicLong", "AtomicReference", "LongAdder",
+            "StringBuilder", "StringBuffer");
+    //endregion
+
+    //region Конструкторы
+    private SharedStateAnalyzer() {
+    }
+    //endregion
+
+    //region Методы
+    /**
+     * Проверяет, есть ли у класса разделяемое изменяемое состояние. Требует доступа на чтение PSI.
+     *
+     * @param psiClass Тестируемый класс
+     * @return true - тесты класса должны выполняться последовательно
+     */
+    public static boolean hasSharedState(PsiClass psiClass) {
+        for (PsiField field : psiClass.getFields()) {
+            if (field instanceof PsiEnumConstant || !field.hasModifierProperty(PsiModifier.STATIC)) continue;
+            if (!field.hasModifierProperty(PsiModifier.FINAL) || isSingleton(psiClass, field) || isMutable(field))
+                return true;
+        }
+        for (PsiMethod method : psiClass.getMethods()) {
+            if (method.hasModifierProperty(PsiModifier.SYNCHRONIZED)) return true;
+            PsiCodeBlock body = method.getBody();
+            if (body != null && PsiTreeUtil.findChildOfType(body, PsiSynchronizedStatement.class) != null) return true;
+        }
+        return false;
+    }
+
+    private static boolean isSingleton(PsiClass psiClass, PsiField field) {
+        return getErasedName(field.getType().getPresentableText()).equals(psiClass.getName());
+    }
+
+    private static boolean isMutable(PsiField field) {
+        return MUTABLE_TYPES.contains(getErasedName(field.getType().getPresentableText()));
+    }
+
+    /**
+     * Простое имя типа без аргументов типа: {@code java.util.List<String>} - {@code List}
+     */
+    static String getErasedName(String typeText) {
+        int genericStart = typeText.indexOf('<');
+        String erased = genericStart >= 0 ? typeText.substring(0, genericStart) : typeText;
+        return erased.substring(erased.lastIndexOf('.') + 1);
+    }
+    //endregion
+}
@@ -0,0 +1,27 @@
+package org.dasxunya.diploma.generator;
+
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiMethod;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Изменение существующего тестирующего класса при инкрементальной генерации:
+ * добавляются тесты для новых методов и методов с изменившейся сигнатурой. Существующие тесты не удаляются:
+ * новый тест добавляется после устаревшего, а устаревший тест с источником {@code @MethodSource} переименовывается
+ * вместе с источником, чтобы имя источника досталось новому тесту.
+ *
+ * @param testClass       Существующий тестирующий класс
+ * @param methodTexts     Тексты добавляемых тестирующих методов
+ * @param outdatedTests Тестирующие методы, сигнатура которых больше не совпадает с тестируемыми методами
+ * @param sourceFileUrl URL исходного файла тестируемого класса
+ * @param indexEntries  Записи индекса сгенерированных тестов
+ */
+public record TestClassPatch(PsiClass testClass, List<String> methodTexts, List<PsiMethod> outdatedTests,
+                             String sourceFileUrl, Map<String, String> indexEntries) implements GenerationResult {
+
+    public boolean isEmpty() {
+        return this.methodTexts.isEmpty();
+    }
+}
@@ -0,0 +1,67 @@
+package org.dasxunya.diploma.generator;
+
+import org.dasxunya.diploma.constants.Constants;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Файлы тестовых данных {@code @CsvFileSource}, собираемые при генерации одного тестирующего класса.
+ * <p>
+ * Имена файлов задаются относительно пакета тестирующего класса: JUnit загружает ресурс через
+ * {@code Class.getResourceAsStream}, поэтому относительное имя ищется рядом с классом в ресурсах теста.
+ * Методы потокобезопасны, так как тесты методов большого класса генерируются параллельно.
+ */
+public final class TestDataFiles {
+
+    //region Поля
+    private final String testClassName;
+    /**
+     * Имя файла -> содержимое в формате CSV, упорядочено по имени независимо от порядка генерации
+     */
+    private final Map<String, String> files = new TreeMap<>();
+    //endregion
+
+    //region Конструкторы
+    public TestDataFiles(String testClassName) {
+        this.testClassName = testClassName;
+    }
+    //endregion
+
+    //region Методы
+    /**
+     * Добавляет файл данных тестирующего метода. Перегрузки одного метода получают файлы с номером перегрузки
+     * в порядке объявления, поэтому имена не зависят от порядка (в том числе параллельной) генерации тестов.
+     *
+     * @param testMethodName Имя тестирующего метода
+     * @param overloadIndex  Номер перегрузки тестируемого метода в порядке объявления, 0 - первая
+     * @param content        Содержимое файла
+     * @return Имя ресурса для {@code @CsvFileSource(resources = ...)}
+     */
+    public synchronized String add(String testMethodName, int overloadIndex, String content) {
+        String fileName = this.testClassName + "_" + testMethodName + (overloadIndex > 0 ? String.valueOf(overloadIndex) : "")
+                          + "." + Constants.Strings.Extensions.csv;
+        this.files.put(fileName, content);
+        return fileName;
+    }
+
+    public synchronized Map<String, String> getFiles() {
+        return Collections.unmodifiableMap(new TreeMap<>(this.files));
+    }
+
+    /**
+     * Значение ячейки файла: значения в одинарных кавычках из {@code @CsvSource} разворачиваются,
+     * пустые значения, значения с разделителем и с пробелами по краям (JUnit обрезает их без кавычек)
+     * заключаются в двойные кавычки
+     */
+    public static String toCell(String csvValue) {
+        String value = csvValue;
+        if (value.length() >= 2 && value.startsWith("'") && value.endsWith("'"))
+            value = value.substring(1, value.length() - 1);
+        if (value.isEmpty() || !value.strip().equals(value) || value.indexOf(',') >= 0 || value.indexOf('"') >= 0)
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        return value;
+    }
+    //endregion
+}
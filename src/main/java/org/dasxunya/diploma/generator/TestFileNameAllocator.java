@@ -0,0 +1,133 @@
+package org.dasxunya.diploma.generator;
+
+import com.intellij.openapi.components.Service;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiDirectory;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Потокобезопасный распределитель свободных имен тестовых файлов по директориям проекта.
+ * <p>
+ * Имена файлов директории считываются один раз при первом обращении и далее поддерживаются
+ * {@link TestFileNameListener}: созданные, скопированные и перемещенные в директорию файлы добавляются,
+ * удаленные, перемещенные из нее и переименованные - освобождаются. Выданные, но еще не записанные имена
+ * резервируются за владельцем - элементом, для которого генерируется файл, поэтому параллельные задачи генерации,
+ * пишущие в один пакет, не получают одинаковых имен, а повторная подготовка того же элемента (например, после
+ * перезапуска неблокирующего действия чтения) получает то же имя. Резерв снимается при создании файла.
+ */
+@Service(Service.Level.PROJECT)
+public final class TestFileNameAllocator {
+
+    //region Поля
+    /**
+     * URL директории -> занятые имена файлов
+     */
+    private final Map<String, DirectoryNames> directories = new ConcurrentHashMap<>();
+    //endregion
+
+    public static TestFileNameAllocator getInstance(Project project) {
+        return project.getService(TestFileNameAllocator.class);
+    }
+
+    //region Методы
+    /**
+     * Выдает свободное имя файла: {@code baseName}, {@code baseName1}, {@code baseName2}... и резервирует его за владельцем.
+     * Повторный вызов для того же владельца возвращает уже зарезервированное имя, если файл еще не создан.
+     *
+     * @param directory Директория, в которой будет создан файл
+     * @param baseName  Желаемое имя файла без расширения
+     * @param extension Расширение файла без точки
+     * @param owner     Ключ элемента, для которого создается файл
+     * @return Свободное имя файла без расширения
+     */
+    public String allocate(PsiDirectory directory, String baseName, String extension, String owner) {
+        VirtualFile virtualFile = directory.getVirtualFile();
+        DirectoryNames names = this.directories.computeIfAbsent(virtualFile.getUrl(), url -> new DirectoryNames(virtualFile));
+        return names.allocate(baseName, "." + extension, owner);
+    }
+
+    /**
+     * Отмечает имя файла занятым, если имена директории уже считаны, и снимает его резерв
+     */
+    public void reserve(String directoryUrl, String fileName) {
+        DirectoryNames names = this.directories.get(directoryUrl);
+        if (names != null) names.reserve(fileName);
+    }
+
+    /**
+     * Освобождает имя удаленного, перемещенного или переименованного файла
+     */
+    public void release(String directoryUrl, String fileName) {
+        DirectoryNames names = this.directories.get(directoryUrl);
+        if (names != null) names.release(fileName);
+    }
+
+    /**
+     * Забывает имена удаленной или перемещенной директории и ее поддиректорий
+     */
+    public void releaseDirectory(String directoryUrl) {
+        this.directories.keySet().removeIf(url -> url.equals(directoryUrl) || url.startsWith(directoryUrl + "/"));
+    }
+    //endregion
+
+    /**
+     * Занятые имена одной директории, резервы владельцев и следующий номер для каждого базового имени
+     */
+    private static final class DirectoryNames {
+        private final Set<String> fileNames = new HashSet<>();
+        /**
+         * Владелец -> зарезервированное имя файла с расширением
+         */
+        private final Map<String, String> reserved = new HashMap<>();
+        /**
+         * Зарезервированное имя файла -> владелец
+         */
+        private final Map<String, String> owners = new HashMap<>();
+        private final Map<String, Integer> nextSuffixes = new HashMap<>();
+
+        private DirectoryNames(VirtualFile directory) {
+            for (VirtualFile child : directory.getChildren())
+                this.fileNames.add(child.getName());
+        }
+
+        private synchronized String allocate(String baseName, String extension, String owner) {
+            String reservedName = this.reserved.get(owner);
+            if (reservedName != null && !this.fileNames.contains(reservedName))
+                return reservedName.substring(0, reservedName.length() - extension.length());
+            String name = baseName;
+            if (this.isTaken(name + extension)) {
+                int suffix = this.nextSuffixes.getOrDefault(baseName, 1);
+                name = baseName + suffix;
+                while (this.isTaken(name + extension))
+                    name = baseName + ++suffix;
+                this.nextSuffixes.put(baseName, suffix + 1);
+            }
+            if (reservedName != null) this.owners.remove(reservedName);
+            this.reserved.put(owner, name + extension);
+            this.owners.put(name + extension, owner);
+            return name;
+        }
+
+        private boolean isTaken(String fileName) {
+            return this.fileNames.contains(fileName) || this.owners.containsKey(fileName);
+        }
+
+        private synchronized void reserve(String fileName) {
+            this.fileNames.add(fileName);
+            String owner = this.owners.remove(fileName);
+            if (owner != null) this.reserved.remove(owner);
+        }
+
+        private synchronized void release(String fileName) {
+            this.fileNames.remove(fileName);
+            // Освободившийся номер снова может быть выдан
+            this.nextSuffixes.clear();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package org.dasxunya.diploma.generator;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.events.VFileCopyEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileCreateEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileDeleteEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileMoveEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFilePropertyChangeEvent;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+
+/**
+ * Поддерживает имена файлов {@link TestFileNameAllocator} в соответствии с файловой системой:
+ * до удаления, перемещения и переименования освобождает прежнее имя, после создания, копирования,
+ * перемещения и переименования занимает новое.
+ */
+public class TestFileNameListener implements BulkFileListener {
+
+    //region Поля
+    private final Project project;
+    //endregion
+
+    //region Конструкторы
+    public TestFileNameListener(Project project) {
+        this.project = project;
+    }
+    //endregion
+
+    @Override
+    public void before(@NotNull List<? extends VFileEvent> events) {
+        TestFileNameAllocator allocator = TestFileNameAllocator.getInstance(this.project);
+        for (VFileEvent event : events) {
+            if (event instanceof VFileDeleteEvent || event instanceof VFileMoveEvent
+                || event instanceof VFilePropertyChangeEvent propertyChange && propertyChange.isRename()) {
+                // До события файл еще находится по прежнему пути
+                VirtualFile file = event.getFile();
+                if (file == null) continue;
+                if (file.isDirectory()) allocator.releaseDirectory(file.getUrl());
+                VirtualFile directory = file.getParent();
+                if (directory != null) allocator.release(directory.getUrl(), file.getName());
+            }
+        }
+    }
+
+    @Override
+    public void after(@NotNull List<? extends VFileEvent> events) {
+        TestFileNameAllocator allocator = TestFileNameAllocator.getInstance(this.project);
+        for (VFileEvent event : events) {
+            if (event instanceof VFileCreateEvent createEvent) {
+                this.reserve(allocator, createEvent.getParent(), createEvent.getChildName());
+            } else if (event instanceof VFileCopyEvent copyEvent) {
+                this.reserve(allocator, copyEvent.getNewParent(), copyEvent.getNewChildName());
+            } else if (event instanceof VFileMoveEvent
+                       || event instanceof VFilePropertyChangeEvent propertyChange && propertyChange.isRename()) {
+                // После перемещения или переименования файл уже находится по новому пути
+                VirtualFile file = event.getFile();
+                if (file != null) this.reserve(allocator, file.getParent(), file.getName());
+            }
+        }
+    }
+
+    private void reserve(TestFileNameAllocator allocator, VirtualFile directory, String fileName) {
+        if (directory != null) allocator.reserve(directory.getUrl(), fileName);
+    }
+}
@@ -0,0 +1,292 @@
+package org.dasxunya.diploma.generator;
+
+import com.intellij.codeInsight.actions.OptimizeImportsProcessor;
+import com.intellij.codeInsight.actions.ReformatCodeProcessor;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ModalityState;
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ModuleRootManager;
+import com.intellij.openapi.roots.ProjectFileIndex;
+import com.intellij.openapi.vfs.VfsUtil;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiAnnotation;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiDirectory;
+import com.intellij.psi.JavaPsiFacade;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiElementFactory;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiFileFactory;
+import com.intellij.psi.PsiMethod;
+import com.intellij.psi.PsiModifierList;
+import org.dasxunya.diploma.constants.Constants;
+import org.jetbrains.jps.model.java.JavaResourceRootType;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Пакетная запись подготовленных результатов генерации в проект.
+ * <p>
+ * Результаты записываются порциями по {@link #CHUNK_SIZE} в отдельных действиях записи с общим
+ * идентификатором группы, поэтому вся пакетная запись отменяется одним действием, а между порциями
+ * EDT освобождается для интерфейса. После последней порции обновляется индекс сгенерированных тестов,
+ * а созданные и измененные файлы один раз форматируются и очищаются от лишних импортов в фоне.
+ * Файлы данных {@code @CsvFileSource} записываются в корень ресурсов тестов модуля вместе с тестирующим классом,
+ * для параллельных тестирующих классов в него добавляются настройки {@code junit-platform.properties}.
+ * Если у модуля нет корня ресурсов тестов, ресурсы не записываются, чтобы не попасть в основной артефакт.
+ * Время записи и форматирования добавляется к метрикам генерации, сводка которых пишется в журнал в конце.
+ */
+public class TestsBatchWriter {
+
+    //region Поля
+    private static final Logger LOG = Logger.getInstance(TestsBatchWriter.class);
+    /**
+     * Количество результатов, записываемых одним действием записи
+     */
+    private static final int CHUNK_SIZE = 50;
+    private static final String COMMAND_NAME = "Generate Tests";
+    /**
+     * Суффикс устаревшего теста, источник данных которого нужен новому тесту
+     */
+    private static final String OUTDATED_SUFFIX = "Outdated";
+    private static final String METHOD_SOURCE = "org.junit.jupiter.params.provider.MethodSource";
+    private final Project project;
+    private final String groupId;
+    private final Set<PsiFile> changedFiles = new LinkedHashSet<>();
+    /**
+     * Корни ресурсов, настройки параллельного выполнения в которых уже проверены
+     */
+    private final Set<VirtualFile> propertiesRoots = new HashSet<>();
+    /**
+     * Форматировать записанные файлы и оптимизировать импорты после записи
+     */
+    private boolean isReformat = true;
+    private GenerationMetrics metrics = new GenerationMetrics();
+    //endregion
+
+    //region Конструкторы
+    public TestsBatchWriter(Project project) {
+        this.project = project;
+        this.groupId = COMMAND_NAME + "@" + System.identityHashCode(this);
+    }
+    //endregion
+
+    //region Сеттеры/Геттеры
+    public void setReformat(boolean reformat) {
+        isReformat = reformat;
+    }
+
+    public void setMetrics(GenerationMetrics metrics) {
+        this.metrics = metrics;
+    }
+    //endregion
+
+    //region Методы
+    /**
+     * Начинает запись результатов. Должен вызываться на EDT, первая порция записывается сразу,
+     * остальные - в последующих событиях EDT.
+     *
+     * @param results Подготовленные результаты генерации
+     * @throws IllegalStateException Директория или тестирующий класс были удалены до начала записи
+     */
+    public void write(List<? extends GenerationResult> results) throws IllegalStateException {
+        List<GenerationResult> changes = new ArrayList<>();
+        for (GenerationResult result : results) {
+            if (result instanceof GeneratedTestFile testFile && !testFile.directory().isValid()) {
+                throw new IllegalStateException("Директория для тестов была удалена: " + testFile.directory().getName());
+            }
+            if (result instanceof TestClassPatch patch && !patch.testClass().isValid()) {
+                throw new IllegalStateException("Тестирующий класс был удален: " + patch.testClass().getName());
+            }
+            // Пустое изменение не требует записи, но его записи индекса сохраняются
+            if (!(result instanceof TestClassPatch patch && patch.isEmpty()))
+                changes.add(result);
+        }
+        this.writeChunk(changes, results, 0);
+    }
+
+    private void writeChunk(List<GenerationResult> changes, List<? extends GenerationResult> results, int from) {
+        int to = Math.min(from + CHUNK_SIZE, changes.size());
+        if (from < to) {
+            GenerationMetrics.Measurement writing = this.metrics.start(GenerationMetrics.Phase.FILE_WRITE);
+            WriteCommandAction.runWriteCommandAction(this.project, COMMAND_NAME, this.groupId, () -> {
+                PsiFileFactory psiFileFactory = PsiFileFactory.getInstance(this.project);
+                PsiElementFactory psiElementFactory = JavaPsiFacade.getElementFactory(this.project);
+                for (GenerationResult result : changes.subList(from, to))
+                    this.apply(result, psiFileFactory, psiElementFactory);
+            });
+            this.metrics.stop(writing);
+        }
+        if (to < changes.size()) {
+            // Следующая порция записывается после обработки накопившихся событий интерфейса
+            ApplicationManager.getApplication().invokeLater(() -> this.writeChunk(changes, results, to),
+                    ModalityState.defaultModalityState(), expired -> this.project.isDisposed());
+        } else {
+            this.finish(results);
+        }
+    }
+
+    private void apply(GenerationResult result, PsiFileFactory psiFileFactory, PsiElementFactory psiElementFactory) {
+        // Между порциями элементы могли быть удалены пользователем
+        if (result instanceof GeneratedTestFile testFile && testFile.directory().isValid()) {
+            PsiFile file = psiFileFactory.createFileFromText(testFile.fileName() + "." + Constants.Strings.Extensions.java, testFile.content());
+            PsiElement added = testFile.directory().add(file);
+            if (added instanceof PsiFile addedFile) this.changedFiles.add(addedFile);
+            this.metrics.increment(GenerationMetrics.Counter.FILES);
+            this.writeDataFiles(testFile.directory(), testFile.dataFiles());
+            if (testFile.concurrent()) this.writePlatformProperties(testFile.directory());
+        } else if (result instanceof TestClassPatch patch && patch.testClass().isValid()) {
+            PsiClass testClass = patch.testClass();
+            // Устаревшие тесты не удаляются, новый тест добавляется после устаревшего и его источника данных
+            Map<String, PsiElement> anchors = new HashMap<>();
+            for (PsiMethod outdatedTest : patch.outdatedTests()) {
+                if (outdatedTest.isValid())
+                    anchors.put(outdatedTest.getName(), this.renameOutdatedTest(testClass, outdatedTest, psiElementFactory));
+            }
+            // Текст теста может содержать несколько методов, например тест и его источник @MethodSource
+            for (String methodText : patch.methodTexts()) {
+                PsiMethod[] methods = psiElementFactory.createClassFromText(methodText, testClass).getMethods();
+                PsiElement anchor = methods.length > 0 ? anchors.get(methods[0].getName()) : null;
+                for (PsiMethod method : methods)
+                    anchor = anchor != null ? testClass.addAfter(method, anchor) : testClass.add(method);
+            }
+            this.changedFiles.add(testClass.getContainingFile());
+        }
+    }
+
+    /**
+     * Освобождает имя источника {@code @MethodSource} устаревшего теста для нового теста: устаревший тест
+     * и его источник переименовываются с суффиксом {@link #OUTDATED_SUFFIX}. Тест без источника не изменяется,
+     * новый тест с другими параметрами добавляется рядом как перегрузка.
+     *
+     * @return Последний элемент устаревшего теста, после которого добавляется новый тест
+     */
+    private PsiElement renameOutdatedTest(PsiClass testClass, PsiMethod outdatedTest, PsiElementFactory psiElementFactory) {
+        String testName = outdatedTest.getName();
+        PsiMethod[] sources = testClass.findMethodsByName(testName + UnitTestsGenerator.ARGUMENTS_SUFFIX, false);
+        if (sources.length == 0) return outdatedTest;
+        String newName = testName + OUTDATED_SUFFIX;
+        for (int i = 2; testClass.findMethodsByName(newName, false).length > 0
+                        || testClass.findMethodsByName(newName + UnitTestsGenerator.ARGUMENTS_SUFFIX, false).length > 0; i++)
+            newName = testName + OUTDATED_SUFFIX + i;
+        String sourceName = newName + UnitTestsGenerator.ARGUMENTS_SUFFIX;
+        PsiModifierList modifierList = outdatedTest.getModifierList();
+        PsiAnnotation methodSource = modifierList != null ? modifierList.findAnnotation(METHOD_SOURCE) : null;
+        if (methodSource != null)
+            methodSource.replace(psiElementFactory.createAnnotationFromText("@MethodSource(\"" + sourceName + "\")", outdatedTest));
+        outdatedTest.setName(newName);
+        for (PsiMethod source : sources)
+            source.setName(sourceName);
+        return sources[sources.length - 1];
+    }
+
+    private void writeDataFiles(PsiDirectory testDirectory, Map<String, String> dataFiles) {
+        if (dataFiles.isEmpty()) return;
+        try {
+            VirtualFile directory = this.getResourceDirectory(testDirectory.getVirtualFile());
+            if (directory == null) {
+                LOG.warn("Нет корня ресурсов тестов для " + testDirectory.getVirtualFile().getPath()
+                         + ", файлы данных не записаны: " + dataFiles.keySet());
+                return;
+            }
+            for (Map.Entry<String, String> dataFile : dataFiles.entrySet()) {
+                VirtualFile file = directory.findChild(dataFile.getKey());
+                if (file == null) file = directory.createChildData(this, dataFile.getKey());
+                VfsUtil.saveText(file, dataFile.getValue());
+                this.metrics.increment(GenerationMetrics.Counter.FILES);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Не удалось записать файлы данных тестов: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Дополняет {@code junit-platform.properties} корня ресурсов настройками параллельного выполнения
+     *
+     * @see JunitPlatformProperties
+     */
+    private void writePlatformProperties(PsiDirectory testDirectory) {
+        try {
+            VirtualFile root = this.getResourceRoot(testDirectory.getVirtualFile());
+            if (root == null) {
+                LOG.warn("Нет корня ресурсов тестов для " + testDirectory.getVirtualFile().getPath()
+                         + ", " + JunitPlatformProperties.FILE_NAME + " не записан");
+                return;
+            }
+            if (!this.propertiesRoots.add(root)) return;
+            VirtualFile file = root.findChild(JunitPlatformProperties.FILE_NAME);
+            String content = file != null ? VfsUtil.loadText(file) : "";
+            String merged = JunitPlatformProperties.merge(content);
+            if (merged.equals(content)) return;
+            if (file == null) file = root.createChildData(this, JunitPlatformProperties.FILE_NAME);
+            VfsUtil.saveText(file, merged);
+            this.metrics.increment(GenerationMetrics.Counter.FILES);
+        } catch (IOException e) {
+            throw new IllegalStateException("Не удалось записать " + JunitPlatformProperties.FILE_NAME + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Корень ресурсов тестов модуля тестирующего класса (например, {@code src/test/resources}), попадающий
+     * только в classpath тестов. Корень определяется по разметке модуля, а не по соседству с корнем исходников,
+     * поэтому для теста в {@code src/main/java} ресурсы не попадают в {@code src/main/resources}.
+     *
+     * @return Корень ресурсов тестов или null, если модуль его не отмечает
+     */
+    private VirtualFile getResourceRoot(VirtualFile testDirectory) {
+        Module module = ProjectFileIndex.getInstance(this.project).getModuleForFile(testDirectory);
+        if (module == null) return null;
+        List<VirtualFile> roots = ModuleRootManager.getInstance(module).getSourceRoots(JavaResourceRootType.TEST_RESOURCE);
+        return roots.isEmpty() ? null : roots.get(0);
+    }
+
+    /**
+     * Директория ресурсов тестов для пакета тестирующего класса: {@code src/test/resources/<пакет>}
+     *
+     * @return Директория пакета или null, если у модуля нет корня ресурсов тестов
+     */
+    private VirtualFile getResourceDirectory(VirtualFile testDirectory) throws IOException {
+        VirtualFile resourceRoot = this.getResourceRoot(testDirectory);
+        if (resourceRoot == null) return null;
+        String packageName = ProjectFileIndex.getInstance(this.project).getPackageNameByDirectory(testDirectory);
+        return packageName == null || packageName.isEmpty()
+                ? resourceRoot
+                : VfsUtil.createDirectoryIfMissing(resourceRoot, packageName.replace('.', '/'));
+    }
+
+    private void finish(List<? extends GenerationResult> results) {
+        //region Обновление индекса сгенерированных тестов
+        GeneratedTestsIndex index = GeneratedTestsIndex.getInstance(this.project);
+        for (GenerationResult result : results) {
+            if (result.sourceFileUrl() != null)
+                index.put(result.sourceFileUrl(), result.indexEntries());
+        }
+        //endregion
+        //region Отложенное форматирование
+        PsiFile[] files = this.changedFiles.stream().filter(PsiFile::isValid).toArray(PsiFile[]::new);
+        if (this.isReformat && files.length > 0) {
+            ReformatCodeProcessor processor = new ReformatCodeProcessor(new OptimizeImportsProcessor(this.project, files, null), false);
+            // Форматирование выполняется в фоне, его время замеряется по завершении
+            GenerationMetrics.Measurement formatting = this.metrics.start(GenerationMetrics.Phase.FORMATTING);
+            processor.setPostRunnable(() -> {
+                this.metrics.stop(formatting);
+                this.metrics.log();
+            });
+            processor.run();
+            return;
+        }
+        //endregion
+        this.metrics.log();
+    }
+    //endregion
+}
@@ -0,0 +1,89 @@
+package org.dasxunya.diploma.generator;
+
+import org.dasxunya.diploma.constants.Constants;
+
+/**
+ * Категория типа, определяющая пример значения и вид утверждения для параметров и возвращаемых значений
+ */
+public enum TypeCategory {
+    BOOLEAN("true"),
+    BYTE("0"),
+    CHAR("'a'"),
+    SHORT("0"),
+    INT("0"),
+    LONG("0"),
+    FLOAT("0.0f"),
+    DOUBLE("0.0"),
+    STRING("exampleString"),
+    VOID("null"),
+    /**
+     * Все неизвестные или сложные типы
+     */
+    OBJECT("null");
+
+    //region Поля
+    private final String exampleData;
+    //endregion
+
+    //region Конструкторы
+    TypeCategory(String exampleData) {
+        this.exampleData = exampleData;
+    }
+    //endregion
+
+    //region Методы
+    /**
+     * Пример значения типа
+     *
+     * @param isWrapString Обернуть строку в кавычки для использования в коде, а не в CSV
+     */
+    public String getExampleData(boolean isWrapString) {
+        if (this == STRING && isWrapString)
+            return "\"" + this.exampleData + "\"";
+        return this.exampleData;
+    }
+
+    /**
+     * Целочисленный тип, значения которого сравниваются точно
+     */
+    public boolean isIntegral() {
+        return this == INT || this == LONG || this == SHORT || this == BYTE || this == CHAR;
+    }
+
+    /**
+     * Тип с плавающей точкой, значения которого сравниваются с дельтой
+     */
+    public boolean isFloating() {
+        return this == FLOAT || this == DOUBLE;
+    }
+
+    /**
+     * Определяет категорию по тексту типа. Примитивы определяются по каноническому тексту,
+     * строка - по отображаемому имени.
+     */
+    public static TypeCategory of(String canonicalText, String presentableText) {
+        switch (canonicalText.toLowerCase()) {
+            case Constants.Strings.Types.booleanType:
+                return BOOLEAN;
+            case Constants.Strings.Types.byteType:
+                return BYTE;
+            case Constants.Strings.Types.charType:
+                return CHAR;
+            case Constants.Strings.Types.shortType:
+                return SHORT;
+            case Constants.Strings.Types.intType:
+                return INT;
+            case Constants.Strings.Types.longType:
+                return LONG;
+            case Constants.Strings.Types.floatType:
+                return FLOAT;
+            case Constants.Strings.Types.doubleType:
+                return DOUBLE;
+            case Constants.Strings.Types.voidType:
+                return VOID;
+            default:
+                return presentableText.equalsIgnoreCase(Constants.Strings.Types.stringType) ? STRING : OBJECT;
+        }
+    }
+    //endregion
+}
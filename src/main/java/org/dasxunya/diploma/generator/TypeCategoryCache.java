@@ -0,0 +1,122 @@
+package org.dasxunya.diploma.generator;
+
+import com.intellij.psi.PsiArrayType;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiClassType;
+import com.intellij.psi.PsiPrimitiveType;
+import com.intellij.psi.PsiType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Потокобезопасный кэш категорий и текстов типов.
+ * <p>
+ * Ключом служит сам тип без построения его текста: примитив - по объекту типа, класс - по разрешенному
+ * {@link PsiClass} и ключам аргументов типа, массив - по ключу компонента. Канонический текст используется
+ * ключом только для типов, которые так не описываются (wildcard, неразрешенные классы).
+ * Каждый различный тип классифицируется один раз за время жизни генератора: канонический и отображаемый
+ * тексты строятся только при промахе и затем берутся из записи кэша.
+ */
+public class TypeCategoryCache {
+
+    //region Поля
+    /**
+     * Предел размера кэша, при превышении которого кэш очищается
+     */
+    private static final int MAX_SIZE = 4096;
+    private final Map<Object, CachedType> types = new ConcurrentHashMap<>();
+    private final GenerationMetrics metrics;
+    //endregion
+
+    //region Конструкторы
+    public TypeCategoryCache() {
+        this(new GenerationMetrics());
+    }
+
+    public TypeCategoryCache(GenerationMetrics metrics) {
+        this.metrics = metrics;
+    }
+    //endregion
+
+    /**
+     * Запись кэша: категория и тексты типа, для класса - разрешенный класс
+     *
+     * @param category        Категория типа
+     * @param canonicalText   Канонический текст типа
+     * @param presentableText Отображаемый текст типа
+     * @param psiClass        Разрешенный класс, null - тип не является разрешенным классом
+     */
+    public record CachedType(TypeCategory category, String canonicalText, String presentableText, PsiClass psiClass) {
+    }
+
+    private record ClassKey(PsiClass psiClass, List<Object> typeArguments) {
+    }
+
+    private record ArrayKey(Object componentKey) {
+    }
+
+    //region Методы
+    public TypeCategory get(PsiType psiType) {
+        return this.resolve(psiType).category();
+    }
+
+    /**
+     * Возвращает запись кэша для типа. Тексты типа строятся только при промахе.
+     */
+    public CachedType resolve(PsiType psiType) {
+        PsiClass psiClass = psiType instanceof PsiClassType classType ? classType.resolve() : null;
+        Object key = getKey(psiType, psiClass);
+        String canonicalText = null;
+        if (key == null) {
+            canonicalText = psiType.getCanonicalText();
+            key = canonicalText;
+        }
+        CachedType type = this.types.get(key);
+        if (type != null) {
+            this.metrics.increment(GenerationMetrics.Counter.TYPE_CACHE_HITS);
+        } else {
+            this.metrics.increment(GenerationMetrics.Counter.TYPE_CACHE_MISSES);
+            if (this.types.size() >= MAX_SIZE) this.types.clear();
+            if (canonicalText == null) canonicalText = psiType.getCanonicalText();
+            String presentableText = psiType.getPresentableText();
+            type = new CachedType(TypeCategory.of(canonicalText, presentableText), canonicalText, presentableText, psiClass);
+            this.types.put(key, type);
+        }
+        return type;
+    }
+
+    /**
+     * Ключ типа без построения текста, null - тип описывается только текстом
+     */
+    private static Object getKey(PsiType psiType, PsiClass psiClass) {
+        if (psiType instanceof PsiPrimitiveType) return psiType;
+        if (psiType instanceof PsiArrayType arrayType) {
+            PsiType componentType = arrayType.getComponentType();
+            Object componentKey = getKey(componentType,
+                    componentType instanceof PsiClassType classType ? classType.resolve() : null);
+            return componentKey != null ? new ArrayKey(componentKey) : null;
+        }
+        if (!(psiType instanceof PsiClassType classType) || psiClass == null) return null;
+        PsiType[] typeArguments = classType.getParameters();
+        List<Object> argumentKeys = new ArrayList<>(typeArguments.length);
+        for (PsiType typeArgument : typeArguments) {
+            Object argumentKey = getKey(typeArgument,
+                    typeArgument instanceof PsiClassType argumentType ? argumentType.resolve() : null);
+            if (argumentKey == null) return null;
+            argumentKeys.add(argumentKey);
+        }
+        return new ClassKey(psiClass, argumentKeys);
+    }
+
+    public int size() {
+        return this.types.size();
+    }
+
+    public void clear() {
+        this.types.clear();
+    }
+    //endregion
+}
@@ -1,15 +1,30 @@
 package org.dasxunya.diploma.generator;
 
-import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.concurrency.JobLauncher;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.project.Project;
 import com.intellij.psi.*;
 //import lombok.Getter;
 import org.dasxunya.diploma.constants.Constants;
 import org.dasxunya.diploma.constants.TestType;
+import org.dasxunya.diploma.constants.TimeoutMode;
+import org.dasxunya.diploma.generator.model.ClassModel;
+import org.dasxunya.diploma.generator.model.MethodModel;
+import org.dasxunya.diploma.generator.model.ParameterModel;
+import org.dasxunya.diploma.generator.templates.TemplateScope;
+import org.dasxunya.diploma.generator.templates.TestTemplates;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.StringJoiner;
+import java.util.Set;
+import java.util.stream.IntStream;
 
 /**
  * Генератор юнит тестов для классов и методов
@@ -18,13 +33,132 @@ import java.util.StringJoiner;
 public class UnitTestsGenerator {
 
     //region Поля
+    /**
+     * Суффикс имени метода-источника данных {@code @MethodSource} после имени тестирующего метода
+     */
+    static final String ARGUMENTS_SUFFIX = "Arguments";
+    /**
+     * Пакет и имя общего класса бюджетов производительности в корне тестов
+     */
+    public static final String PERFORMANCE_SUPPORT_PACKAGE = "testgen";
+    public static final String PERFORMANCE_SUPPORT_CLASS = "PerformanceBudgets";
     private boolean isDebug;
+    /**
+     * Флаг инкрементальной генерации: существующий тестирующий класс дополняется вместо создания нового файла
+     */
+    private boolean isIncremental = true;
+    /**
+     * Минимальное количество методов класса, начиная с которого тесты методов генерируются параллельно
+     */
+    private int parallelThreshold = 64;
+    /**
+     * Время фаз и счетчики генерации
+     */
+    private final GenerationMetrics metrics = new GenerationMetrics();
+    /**
+     * Категории уже встречавшихся типов, общие для всех потоков генерации
+     */
+    private final TypeCategoryCache typeCategories = new TypeCategoryCache(this.metrics);
+    /**
+     * Примеры значений параметров по типам
+     */
+    private final ExampleDataResolver exampleData = new ExampleDataResolver(this.typeCategories, this.metrics);
+    /**
+     * Наибольшее количество строк данных, при котором данные параметризованного теста записываются в {@code @CsvSource}
+     */
+    private int maxCsvRows = 50;
+    /**
+     * Наибольшая длина строки данных {@code @CsvSource} в символах
+     */
+    private int maxCsvWidth = 200;
+    /**
+     * Количество строк данных, начиная с которого данные выносятся в файл {@code @CsvFileSource}, 0 - не выносятся
+     */
+    private int csvFileThreshold = 0;
+    /**
+     * Скомпилированные шаблоны, по которым формируется код тестов
+     */
+    private TestTemplates templates = TestTemplates.getDefault();
+    /**
+     * Ограничение времени выполнения генерируемых тестов
+     */
+    private TimeoutMode timeoutMode = TimeoutMode.NONE;
+    /**
+     * Бюджет времени теста в миллисекундах
+     */
+    private long timeoutMillis = 1000;
+    /**
+     * Бюджет памяти, выделяемой тестом, в байтах, 0 - не проверяется
+     */
+    private long allocationBudget = 0;
+    /**
+     * Отчет о покрытии, по которому отбираются методы для тестов всего класса, null - тесты генерируются для всех методов
+     */
+    private CoverageReport coverageReport;
+    /**
+     * Доля покрытых инструкций, начиная с которой метод считается покрытым
+     */
+    private double coverageThreshold = CoverageReport.DEFAULT_THRESHOLD;
     //endregion
 
     //region Сеттеры/Геттеры
     public void setDebug(boolean debug) {
         isDebug = debug;
     }
+
+    public void setIncremental(boolean incremental) {
+        isIncremental = incremental;
+    }
+
+    public void setParallelThreshold(int parallelThreshold) {
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    public void setMaxCsvRows(int maxCsvRows) {
+        this.maxCsvRows = maxCsvRows;
+    }
+
+    public void setMaxCsvWidth(int maxCsvWidth) {
+        this.maxCsvWidth = maxCsvWidth;
+    }
+
+    public void setCsvFileThreshold(int csvFileThreshold) {
+        this.csvFileThreshold = csvFileThreshold;
+    }
+
+    public void setTemplates(TestTemplates templates) {
+        this.templates = Objects.requireNonNull(templates, "Шаблоны не инициализированы");
+    }
+
+    public void setTimeoutMode(TimeoutMode timeoutMode) {
+        this.timeoutMode = Objects.requireNonNull(timeoutMode, "Режим ограничения времени не задан");
+    }
+
+    public void setTimeoutMillis(long timeoutMillis) {
+        if (timeoutMillis <= 0)
+            throw new IllegalArgumentException("Бюджет времени должен быть положительным: " + timeoutMillis);
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public void setAllocationBudget(long allocationBudget) {
+        if (allocationBudget < 0)
+            throw new IllegalArgumentException("Бюджет памяти не может быть отрицательным: " + allocationBudget);
+        this.allocationBudget = allocationBudget;
+    }
+
+    public void setCoverageReport(CoverageReport coverageReport) {
+        this.coverageReport = coverageReport;
+    }
+
+    public void setCoverageThreshold(double coverageThreshold) {
+        if (coverageThreshold < 0 || coverageThreshold > 1)
+            throw new IllegalArgumentException("Порог покрытия должен быть от 0 до 1: " + coverageThreshold);
+        this.coverageThreshold = coverageThreshold;
+    }
+
+    public GenerationMetrics getMetrics() {
+        return metrics;
+    }
     //endregion
 
     //region Конструкторы
@@ -111,166 +245,364 @@ public class UnitTestsGenerator {
         this.append(sb, null, content, suffix);
     }
 
+    /**
+     * Пример значения типа
+     *
+     * @param isWrapString Вернуть выражение на Java, иначе значение для CSV
+     */
     public String generateExampleData(PsiType type, boolean isWrapString) {
-        String typeName = type.getPresentableText();
-        switch (typeName) {
-            case "int":
-                return "0";
-            case "double":
-                return "0.0";
-            case "String":
-                if (isWrapString)
-                    return "\"exampleString\"";
-                return "exampleString";
-            case "boolean":
-                return "true";
-            case "byte":
-                return "0";
-            case "char":
-                return "'a'";
-            case "short":
-                return "0";
-            case "long":
-                return "0";
-            case "float":
-                return "0.0f";
-            default:
-                return "null";  // По умолчанию для всех неизвестных или сложных типов
-        }
+        ExampleData data = this.exampleData.resolve(type);
+        return isWrapString ? data.expression() : data.getCsvValue();
     }
 
     public String generateExampleData(PsiType type) {
         return generateExampleData(type, false);
     }
 
-    public String getMethodCallString(PsiMethod psiMethod) throws NullPointerException {
-        if (psiMethod == null)
-            throwNullPointerException(PsiMethod.class);
-        if (psiMethod != null) {
-            String methodName = psiMethod.getName();
-            PsiParameter[] parameters = psiMethod.getParameterList().getParameters();
-            StringJoiner parameterCalls = new StringJoiner(", ");
-            for (PsiParameter parameter : parameters) {
-                String name = parameter.getName();
-                parameterCalls.add(name);
-            }
-            return String.format("%s(%s)", methodName, parameterCalls);
+    //region Извлечение моделей
+    /**
+     * Извлекает модель метода. Все обращения генератора к PSI метода выполняются здесь,
+     * поэтому вызов требует действия чтения, а генерация по модели - нет.
+     *
+     * @param psiMethod Тестируемый метод
+     * @return Неизменяемая модель метода
+     */
+    public MethodModel createModel(PsiMethod psiMethod) throws NullPointerException {
+        return this.createModel(psiMethod, 0);
+    }
+
+    /**
+     * Извлекает модель метода класса
+     *
+     * @param overloadIndex Номер метода среди одноименных методов класса в порядке объявления
+     */
+    private MethodModel createModel(PsiMethod psiMethod, int overloadIndex) throws NullPointerException {
+        if (psiMethod == null) this.throwNullPointerException(PsiMethod.class);
+        //region Вывод отладной информации о методе
+        if (this.isDebug)
+            this.printLn(this.getInfo(psiMethod));
+        //endregion
+        this.metrics.increment(GenerationMetrics.Counter.METHODS);
+        return this.toModel(psiMethod, overloadIndex);
+    }
+
+    /**
+     * Извлекает модель метода, замеряя разрешение типов отдельно от остального обращения к PSI
+     */
+    @SuppressWarnings("UnstableApiUsage")
+    private MethodModel toModel(PsiMethod psiMethod, int overloadIndex) {
+        GenerationMetrics.Measurement extraction = this.metrics.start(GenerationMetrics.Phase.PSI_EXTRACTION);
+        long typeResolution = 0;
+        PsiType returnType = psiMethod.getReturnType();
+        if (returnType == null)
+            returnType = PsiType.VOID;
+        PsiParameter[] psiParameters = psiMethod.getParameterList().getParameters();
+        List<ParameterModel> parameters = new ArrayList<>(psiParameters.length);
+        for (PsiParameter psiParameter : psiParameters) {
+            PsiType type = psiParameter.getType();
+            GenerationMetrics.Measurement resolution = this.metrics.start(GenerationMetrics.Phase.TYPE_RESOLUTION);
+            // Тексты типа берутся из записи кэша и не строятся заново для каждого параметра
+            TypeCategoryCache.CachedType cachedType = this.typeCategories.resolve(type);
+            ExampleData example = this.exampleData.resolve(type, cachedType);
+            typeResolution += this.metrics.stop(resolution);
+            parameters.add(new ParameterModel(psiParameter.getName(), cachedType.presentableText(), cachedType.category(), example));
         }
-        return null;
+        GenerationMetrics.Measurement resolution = this.metrics.start(GenerationMetrics.Phase.TYPE_RESOLUTION);
+        TypeCategoryCache.CachedType cachedReturnType = this.typeCategories.resolve(returnType);
+        typeResolution += this.metrics.stop(resolution);
+        MethodModel methodModel = new MethodModel(psiMethod.getName(), cachedReturnType.canonicalText(), cachedReturnType.category(),
+                parameters, overloadIndex);
+        this.metrics.stop(extraction, typeResolution);
+        return methodModel;
     }
 
-    public String getMethodCallWithConstantsString(PsiMethod psiMethod) throws NullPointerException {
-        if (psiMethod == null)
-            throwNullPointerException(PsiMethod.class);
-        if (psiMethod != null) {
-            String methodName = psiMethod.getName();
-            PsiParameter[] parameters = psiMethod.getParameterList().getParameters();
-            StringJoiner parameterCalls = new StringJoiner(", ");
-            for (PsiParameter parameter : parameters) {
-                String name = parameter.getName();
-                parameterCalls.add(this.generateExampleData(parameter.getType(), true));
-            }
-            return String.format("%s(%s)", methodName, parameterCalls);
+    /**
+     * Извлекает модель класса
+     *
+     * @param psiClass      Тестируемый класс
+     * @param isWithMethods Извлечь модели всех методов класса
+     * @return Неизменяемая модель класса
+     */
+    public ClassModel createModel(PsiClass psiClass, boolean isWithMethods) throws NullPointerException {
+        if (psiClass == null) this.throwNullPointerException(PsiClass.class);
+        return this.createModel(psiClass, isWithMethods ? this.getTestedMethods(psiClass) : PsiMethod.EMPTY_ARRAY);
+    }
+
+    /**
+     * Номер каждого метода среди одноименных методов класса в порядке объявления: 0, 1, 2...
+     */
+    private static Map<PsiMethod, Integer> getOverloadIndices(PsiClass psiClass) {
+        PsiMethod[] psiMethods = psiClass.getMethods();
+        Map<PsiMethod, Integer> overloadIndices = new HashMap<>(psiMethods.length * 2);
+        Map<String, Integer> counts = new HashMap<>();
+        for (PsiMethod psiMethod : psiMethods)
+            overloadIndices.put(psiMethod, counts.merge(psiMethod.getName(), 1, Integer::sum) - 1);
+        return overloadIndices;
+    }
+
+    /**
+     * Методы класса, для которых генерируются тесты. При заданном отчете о покрытии - только недостаточно
+     * покрытые, начиная с методов с наибольшим числом непокрытых инструкций.
+     *
+     * @see CoverageReport#selectUncovered(PsiClass, PsiMethod[], double)
+     */
+    public PsiMethod[] getTestedMethods(PsiClass psiClass) {
+        PsiMethod[] methods = psiClass.getMethods();
+        if (this.coverageReport == null) return methods;
+        PsiMethod[] uncovered = this.coverageReport.selectUncovered(psiClass, methods, this.coverageThreshold);
+        this.metrics.add(GenerationMetrics.Counter.COVERED_METHODS, methods.length - uncovered.length);
+        return uncovered;
+    }
+
+    /**
+     * Извлекает модель класса с выбранными методами
+     *
+     * @param psiClass   Тестируемый класс
+     * @param psiMethods Методы класса, для которых генерируются тесты
+     * @return Неизменяемая модель класса
+     */
+    public ClassModel createModel(PsiClass psiClass, PsiMethod[] psiMethods) throws NullPointerException {
+        if (psiClass == null) this.throwNullPointerException(PsiClass.class);
+        this.metrics.increment(GenerationMetrics.Counter.CLASSES);
+        PsiMethod psiConstructor = FixtureAnalyzer.selectConstructor(psiClass);
+        MethodModel constructor = psiConstructor != null ? this.toModel(psiConstructor, 0) : null;
+        // Номера перегрузок считаются по всем методам класса, а не по выбранным: отбор и порядок по покрытию
+        // не меняют имена файлов данных
+        Map<PsiMethod, Integer> overloadIndices = getOverloadIndices(psiClass);
+        List<MethodModel> methods = new ArrayList<>(psiMethods.length);
+        for (PsiMethod psiMethod : psiMethods) {
+            ProgressManager.checkCanceled();
+            methods.add(this.createModel(psiMethod, overloadIndices.getOrDefault(psiMethod, 0)));
         }
-        return null;
+        //region Жизненный цикл объекта тестируемого класса
+        boolean isImmutable = FixtureAnalyzer.isImmutable(psiClass);
+        // Абстрактный класс и интерфейс создаются в тестах реализаций
+        boolean isSharedFixture = !psiClass.isInterface() && !psiClass.hasModifierProperty(PsiModifier.ABSTRACT)
+                                  && (isImmutable || constructor != null && FixtureAnalyzer.isCostly(constructor));
+        // Общий изменяемый объект не может использоваться параллельно выполняемыми тестами
+        boolean isConcurrent = !SharedStateAnalyzer.hasSharedState(psiClass) && (!isSharedFixture || isImmutable);
+        //endregion
+        return new ClassModel(psiClass.getName(), this.getPackageName(psiClass), constructor, methods,
+                isConcurrent, isSharedFixture);
+    }
+    //endregion
+
+    //region Потоковая запись фрагментов кода
+    private void writeCapitalized(CodeWriter writer, String str) {
+        if (str == null || str.isEmpty()) {
+            if (str != null) writer.print(str);
+            return;
+        }
+        writer.print(Character.toUpperCase(str.charAt(0))).print(str, 1, str.length());
     }
 
-    @SuppressWarnings("DataFlowIssue")
-    public String generateTypeAssert(PsiType psiType, String actualExpression) throws NullPointerException {
-        if (psiType == null)
-            throwNullPointerException(PsiType.class);
-        StringBuilder stringBuilder = new StringBuilder();
-        if (psiType != null) {
-            String returnTypeText = psiType.getCanonicalText();
-            switch (returnTypeText.toLowerCase()) {
-                case Constants.Strings.Types.booleanType:
-                    stringBuilder.append(String.format("%s(%s);\n", Constants.Strings.Tests.Assertions.assertTrue, actualExpression));
-                    stringBuilder.append(String.format("%s(%s);\n", Constants.Strings.Tests.Assertions.assertFalse, actualExpression));
-                    break;
-                case Constants.Strings.Types.intType:
-                case Constants.Strings.Types.longType:
-                case Constants.Strings.Types.shortType:
-                case Constants.Strings.Types.byteType:
-                case Constants.Strings.Types.charType:
-                    stringBuilder.append(String.format("%s expectedValue = 0; // Укажите ожидаемое значение\n", returnTypeText));
-                    stringBuilder.append(String.format("%s(expectedValue, %s);\n", Constants.Strings.Tests.Assertions.assertEqual, actualExpression));
-                    break;
-                case Constants.Strings.Types.doubleType:
-                case Constants.Strings.Types.floatType:
-                    stringBuilder.append(String.format("%s expectedValue = 0; // Укажите ожидаемое значение\n", returnTypeText));
-                    stringBuilder.append(String.format("%s(expectedValue, %s, 0.01); // Укажите дельту для float и double\n", Constants.Strings.Tests.Assertions.assertEqual, actualExpression));
-                    break;
-                case Constants.Strings.Types.voidType:
+    /**
+     * Записывает вызов метода с именами его параметров в качестве аргументов: {@code prefix + name(a, b)}
+     */
+    private void writeMethodCall(CodeWriter writer, String prefix, MethodModel method) {
+        List<ParameterModel> parameters = method.parameters();
+        writer.print(prefix).print(method.name()).print('(');
+        for (int i = 0; i < parameters.size(); i++) {
+            if (i > 0) writer.print(", ");
+            writer.print(parameters.get(i).name());
+        }
+        writer.print(')');
+    }
+
+    /**
+     * Записывает вызов метода с примерами значений в качестве аргументов: {@code name(0, "exampleString")}
+     */
+    private void writeMethodCallWithConstants(CodeWriter writer, MethodModel method) {
+        List<ParameterModel> parameters = method.parameters();
+        writer.print(method.name()).print('(');
+        for (int i = 0; i < parameters.size(); i++) {
+            if (i > 0) writer.print(", ");
+            writer.print(parameters.get(i).example().expression());
+        }
+        writer.print(')');
+    }
+
+    /**
+     * Записывает фактическое значение для утверждения: вызов метода, если он передан, иначе готовое выражение
+     */
+    private void writeActual(CodeWriter writer, String prefix, MethodModel method, String actualExpression) {
+        if (method != null)
+            this.writeMethodCall(writer, prefix, method);
+        else
+            writer.print(actualExpression);
+    }
+
+    /**
+     * Записывает утверждения в зависимости от категории типа проверяемого значения.
+     * Для void-метода (если он передан) в обычном тесте проверяются значения его параметров; в параметризованном
+     * тесте параметры принимают значения всех строк данных, поэтому сравнение с примером не записывается.
+     */
+    private void writeTypeAssert(CodeWriter writer, String typeText, TypeCategory category, String prefix,
+                                 MethodModel method, String actualExpression, boolean isParameterized) {
+        this.templates.get(this.getAssertTemplateName(category))
+                .render(writer, new AssertScope(typeText, prefix, method, actualExpression, isParameterized));
+    }
+
+    private String getAssertTemplateName(TypeCategory category) {
+        if (category == TypeCategory.BOOLEAN) return Constants.Strings.Templates.assertBoolean;
+        if (category.isIntegral()) return Constants.Strings.Templates.assertIntegral;
+        if (category.isFloating()) return Constants.Strings.Templates.assertFloating;
+        if (category == TypeCategory.VOID) return Constants.Strings.Templates.assertVoid;
+        return Constants.Strings.Templates.assertObject;
+    }
+
+    private void writeMethodAssert(CodeWriter writer, String prefix, MethodModel method, boolean isParameterized) {
+        this.writeTypeAssert(writer, method.returnType(), method.returnCategory(), prefix, method, null, isParameterized);
+    }
+
+    //region Бюджеты производительности
+    /**
+     * Проверки тестов выполняются через {@code assertBudget} общего класса {@link #PERFORMANCE_SUPPORT_CLASS}:
+     * бюджет времени проверяется с прерыванием в {@code assertTimeoutPreemptively}, бюджет памяти - по памяти,
+     * выделенной потоком теста. Класс записывается в корень тестов один раз за генерацию.
+     */
+    public boolean isBudgetAsserted() {
+        return this.timeoutMode == TimeoutMode.PREEMPTIVE || this.allocationBudget > 0;
+    }
+
+    /**
+     * Записывает проверки тестирующего метода, при заданных бюджетах - внутри {@code assertBudget}
+     */
+    private void writeGuardedAssert(CodeWriter writer, String prefix, MethodModel method, boolean isParameterized) {
+        if (!this.isBudgetAsserted()) {
+            this.writeMethodAssert(writer, prefix, method, isParameterized);
+            return;
+        }
+        this.templates.get(Constants.Strings.Templates.performanceGuard).render(writer, (w, name) -> {
+            switch (name) {
+                case "supportClass":
+                    w.print(PERFORMANCE_SUPPORT_PACKAGE).print(".").print(PERFORMANCE_SUPPORT_CLASS);
                     break;
-                default:
-                    stringBuilder.append(String.format("Assertions.assertNotNull(%s);\n", actualExpression));
+                case "testName":
+                    w.print(this.getTestMethodName(method.name()));
                     break;
+                case "timeMillis":
+                    w.print(Long.toString(this.timeoutMode == TimeoutMode.PREEMPTIVE ? this.timeoutMillis : 0));
+                    break;
+                case "allocatedBytes":
+                    w.print(Long.toString(this.allocationBudget));
+                    break;
+                case "assert":
+                    this.writeMethodAssert(w, prefix, method, isParameterized);
+                    break;
+                default:
+                    this.throwUnknownVariable(name);
             }
+        });
+    }
+
+    /**
+     * Аннотация {@code @Timeout} тестирующего метода. Бюджет фиксируется при генерации.
+     */
+    private void writeTimeout(CodeWriter writer) {
+        if (this.timeoutMode == TimeoutMode.ANNOTATION) {
+            writer.print("@Timeout(value = ").print(Long.toString(this.timeoutMillis))
+                    .println(", unit = java.util.concurrent.TimeUnit.MILLISECONDS)");
         }
-        return stringBuilder.toString();
     }
 
-    @SuppressWarnings("UnstableApiUsage")
-    private String generateMethodAssert(String prefix, PsiMethod psiMethod) throws NullPointerException {
-        if (psiMethod == null) throwNullPointerException(PsiMethod.class);
-        StringBuilder sb = new StringBuilder();
-        if (psiMethod != null) {
-            //region Получение данных метода
-            String methodName = psiMethod.getName();
-            PsiType returnType = psiMethod.getReturnType();
-            PsiParameter[] parameters = psiMethod.getParameterList().getParameters();
-            StringJoiner parameterCalls = new StringJoiner(", ");
-            for (PsiParameter parameter : parameters) {
-                String name = parameter.getName();
-                parameterCalls.add(name);
+    /**
+     * Общий класс {@link #PERFORMANCE_SUPPORT_CLASS} с методом {@code assertBudget} и кэшем бюджетов тестирующих классов.
+     * Записывается в пакет {@link #PERFORMANCE_SUPPORT_PACKAGE} корня тестов, если проверки выполняются с бюджетами.
+     */
+    public void writePerformanceSupport(CodeWriter writer) {
+        this.templates.get(Constants.Strings.Templates.performanceSupport).render(writer, (w, name) -> {
+            switch (name) {
+                case "package":
+                    w.print(PERFORMANCE_SUPPORT_PACKAGE);
+                    break;
+                case "className":
+                    w.print(PERFORMANCE_SUPPORT_CLASS);
+                    break;
+                default:
+                    this.throwUnknownVariable(name);
             }
-            //endregion
-            if (returnType == null)
-                returnType = PsiType.VOID;
-            //throwNullPointerException(PsiType.class);
-            //region Выбор утверждения в зависимости от типа возвращаемого значения
-            String methodCallText = String.format("%s%s(%s)", prefix, methodName, parameterCalls);
-            if (returnType != null) {
-                String returnTypeText = returnType.getCanonicalText();
-                switch (returnTypeText.toLowerCase()) {
-                    case Constants.Strings.Types.booleanType:
-                        this.append(sb, String.format("%s(%s)", Constants.Strings.Tests.Assertions.assertTrue, methodCallText), Constants.Strings.Code.semiColonNewLine);
-                        this.append(sb, String.format("%s(%s)", Constants.Strings.Tests.Assertions.assertFalse, methodCallText), Constants.Strings.Code.semiColonNewLine);
-                        break;
-                    case Constants.Strings.Types.intType:
-                    case Constants.Strings.Types.longType:
-                    case Constants.Strings.Types.shortType:
-                    case Constants.Strings.Types.byteType:
-                    case Constants.Strings.Types.charType:
-                        this.append(sb, String.format("%s expectedValue = 0; // Укажите ожидаемое значение", returnTypeText), Constants.Strings.Code.newLine);
-                        this.append(sb, String.format("%s(expectedValue, %s)", Constants.Strings.Tests.Assertions.assertEqual, methodCallText), Constants.Strings.Code.semiColonNewLine);
-                        break;
-                    case Constants.Strings.Types.doubleType:
-                    case Constants.Strings.Types.floatType:
-                        this.append(sb, String.format("%s expectedValue = 0; // Укажите ожидаемое значение", returnTypeText), Constants.Strings.Code.newLine);
-                        this.append(sb, String.format("%s(expectedValue, %s, 0.01); // Укажите дельту для float и double",
-                                Constants.Strings.Tests.Assertions.assertEqual, methodCallText), Constants.Strings.Code.newLine);
+        });
+    }
+    //endregion
+
+    /**
+     * Возвращает имя пакета класса. Для Java-файлов берется из объявления пакета,
+     * что не требует обращения к JavaDirectoryService.
+     */
+    private String getPackageName(PsiClass psiClass) {
+        PsiFile psiFile = psiClass.getContainingFile();
+        if (psiFile instanceof PsiClassOwner classOwner)
+            return classOwner.getPackageName();
+        PsiDirectory psiDirectory = psiFile.getContainingDirectory();
+        PsiPackage psiPackage = JavaDirectoryService.getInstance().getPackage(psiDirectory);
+        if (psiPackage == null)
+            throw new NullPointerException("Не удалось получить пакет, которому принадлежит класс");
+        return psiPackage.getQualifiedName();
+    }
+
+    /**
+     * Имя поля с объектом тестируемого класса в тестирующем классе
+     */
+    private String getTestObjectName(String className) {
+        String lowerCaseClassName = className.toLowerCase();
+        return className.equals(lowerCaseClassName) ? className + "TestObject" : lowerCaseClassName;
+    }
+
+    /**
+     * Записывает заголовок тестирующего класса
+     *
+     * @param classModel Модель тестируемого класса: пакет, параллельное выполнение и жизненный цикл объекта
+     */
+    private void writeClassHeader(CodeWriter writer, String testClassName, ClassModel classModel) {
+        String className = testClassName.contains("Tests") ? testClassName : testClassName + "Tests";
+        this.templates.get(Constants.Strings.Templates.classHeader).render(writer, new TemplateScope() {
+            @Override
+            public void writeValue(CodeWriter w, String name) {
+                switch (name) {
+                    case "package":
+                        w.print(classModel.packageName());
                         break;
-                    case Constants.Strings.Types.voidType:
-                        for (PsiParameter psiParameter : parameters) {
-                            String exampleDataStr = this.generateExampleData(psiParameter.getType());
-                            String dataStr = psiParameter.getType().getPresentableText().equalsIgnoreCase(Constants.Strings.Types.stringType) ? String.format("\"%s\"", exampleDataStr) : exampleDataStr;
-                            this.append(sb, String.format("Assertions.assertEquals(%s, %s)", psiParameter.getName(), dataStr), Constants.Strings.Code.semiColonNewLine);
-                        }
+                    case "testClassName":
+                        w.print(className);
                         break;
                     default:
-                        this.append(sb, String.format("Assertions.assertNotNull(%s)", methodCallText), Constants.Strings.Code.semiColonNewLine);
-                        break;
+                        throwUnknownVariable(name);
                 }
             }
-            //endregion
-        }
 
+            @Override
+            public int getBlockSize(String name) {
+                if (name.equals("concurrent")) return classModel.concurrent() ? 1 : 0;
+                return name.equals("sharedFixture") && classModel.sharedFixture() ? 1 : 0;
+            }
+        });
+    }
+    //endregion
+
+    public String getMethodCallString(PsiMethod psiMethod) throws NullPointerException {
+        if (psiMethod == null)
+            throwNullPointerException(PsiMethod.class);
+        StringBuilder sb = new StringBuilder();
+        this.writeMethodCall(new CodeWriter(sb), "", this.toModel(psiMethod, 0));
+        return sb.toString();
+    }
+
+    public String getMethodCallWithConstantsString(PsiMethod psiMethod) throws NullPointerException {
+        if (psiMethod == null)
+            throwNullPointerException(PsiMethod.class);
+        StringBuilder sb = new StringBuilder();
+        this.writeMethodCallWithConstants(new CodeWriter(sb), this.toModel(psiMethod, 0));
         return sb.toString();
     }
 
-    private String generateMethodAssert(PsiMethod psiMethod) throws NullPointerException {
-        return this.generateMethodAssert("", psiMethod);
+    public String generateTypeAssert(PsiType psiType, String actualExpression) throws NullPointerException {
+        if (psiType == null)
+            throwNullPointerException(PsiType.class);
+        TypeCategoryCache.CachedType cachedType = this.typeCategories.resolve(psiType);
+        StringBuilder stringBuilder = new StringBuilder();
+        this.writeTypeAssert(new CodeWriter(stringBuilder), cachedType.canonicalText(), cachedType.category(), "", null, actualExpression, false);
+        return stringBuilder.toString();
     }
 
     @SuppressWarnings({"StringBufferReplaceableByString", "DataFlowIssue"})
@@ -315,30 +647,7 @@ public class UnitTestsGenerator {
     public String getClassHeader(String testClassName, PsiClass psiClass, TestType testType) {
         if (psiClass == null) this.throwNullPointerException(PsiClass.class);
         StringBuilder stringBuilder = new StringBuilder();
-        //region Список добавляемых библиотек и сборок
-        ArrayList<String> imports = new ArrayList<>();
-        // Получение имени пакета класса
-        PsiFile psiFile = psiClass.getContainingFile();
-        PsiDirectory psiDirectory = psiFile.getContainingDirectory();
-        PsiPackage psiPackage = JavaDirectoryService.getInstance().getPackage(psiDirectory);
-        if (psiPackage == null)
-            throw new NullPointerException("Не удалось получить пакет, которому принадлежит класс");
-        // Импорт пакета
-        stringBuilder.append(String.format("package %s;\n", psiPackage.getQualifiedName()));
-        // Добавление библиотек
-        imports.add(Constants.Strings.Imports.orgJunitJupiterAll);
-        imports.add(Constants.Strings.Imports.orgJunitJupiterParamsAll);
-        imports.add(Constants.Strings.Imports.orgJunitJupiterParamsProviderAll);
-        //endregion
-        //region Добавление бибилотек в код тестирующего класса
-        for (String importStr : imports)
-            stringBuilder.append(String.format("import %s;\n", importStr));
-        //endregion
-        //region Формирование имени класса
-        stringBuilder.append(String.format("class %s", testClassName));
-        if (!testClassName.contains("Tests"))
-            stringBuilder.append("Tests");
-        //endregion
+        this.writeClassHeader(new CodeWriter(stringBuilder), testClassName, this.createModel(psiClass, false));
         return stringBuilder.toString();
     }
 
@@ -353,125 +662,274 @@ public class UnitTestsGenerator {
 
     // Перегруженный метод для генерации тестового класса для одного конкретного метода
     public String generate(String testClassName, PsiClass psiClass, PsiMethod psiMethod, TestType testType) {
+        StringBuilder sb = new StringBuilder();
+        this.generate(new CodeWriter(sb), testClassName, psiClass, psiMethod, testType);
+        return sb.toString();
+    }
+
+    /**
+     * Записывает тестирующий класс в общий писатель кода
+     *
+     * @param writer        Писатель, в который записывается класс
+     * @param testClassName Имя тестирующего класса
+     * @param psiClass      Тестируемый класс
+     * @param psiMethod     Тестируемый метод, null - все методы класса
+     * @param testType      Тип теста
+     */
+    public void generate(CodeWriter writer, String testClassName, PsiClass psiClass, PsiMethod psiMethod, TestType testType) {
         if (psiClass == null) this.throwNullPointerException(PsiClass.class);
+        ClassModel classModel = this.createModel(psiClass, psiMethod == null);
+        MethodModel methodModel = psiMethod != null ? this.createModel(psiMethod) : null;
+        this.generate(writer, testClassName, classModel, methodModel, testType);
+    }
+
+    public String generate(String testClassName, ClassModel classModel, MethodModel methodModel, TestType testType) {
         StringBuilder sb = new StringBuilder();
-        //region Формирование заголовкка класса с импортами
-        sb.append(this.getClassHeader(testClassName, psiClass, testType));
-        //endregion
-        //region Формирование тела тестирующего класса
-        //region Открывающая скобка тела класса
-        sb.append(Constants.Strings.Code.space).append(Constants.Strings.Code.openBrace);
-        sb.append(Constants.Strings.Code.newLine);
-        //endregion
+        this.generate(new CodeWriter(sb), testClassName, classModel, methodModel, testType);
+        return sb.toString();
+    }
 
-        String psiClassName = psiClass.getName();
-        String testObjectName = psiClassName.equals(psiClassName.toLowerCase()) ? String.format("%sTestObject", psiClassName) : psiClassName.toLowerCase();
-        //region Объевление полей
-        this.append(sb, Constants.Strings.Code.regionOpen, "Поля", Constants.Strings.Code.newLine);
-        this.append(sb, Constants.Strings.Code.tabulation, String.format("%s %s", psiClass.getName(), testObjectName), Constants.Strings.Code.semiColon + Constants.Strings.Code.newLine);
-        this.append(sb, Constants.Strings.Code.regionClose, Constants.Strings.Code.newLine);
-        //endregion
+    /**
+     * Записывает тестирующий класс по модели. Не обращается к PSI и может выполняться в любом потоке.
+     *
+     * @param writer        Писатель, в который записывается класс
+     * @param testClassName Имя тестирующего класса
+     * @param classModel    Модель тестируемого класса
+     * @param methodModel   Модель тестируемого метода, null - все методы модели класса
+     * @param testType      Тип теста
+     */
+    public void generate(CodeWriter writer, String testClassName, ClassModel classModel, MethodModel methodModel, TestType testType) {
+        this.generate(writer, testClassName, classModel, methodModel, testType, null);
+    }
 
-        //region Настройка перед каждым тестом
-        this.append(sb, Constants.Strings.Code.annotationBeforeEach, Constants.Strings.Code.newLine);
-        this.append(sb, "void setUp() ", Constants.Strings.Code.openBrace);
-        if (psiClass.getConstructors().length > 0) {
-            this.append(sb, Constants.Strings.Code.tabulation, String.format("this.%s = new %s", testObjectName, this.getMethodCallWithConstantsString(psiClass.getConstructors()[0])),
-                    Constants.Strings.Code.semiColon + Constants.Strings.Code.newLine);
+    /**
+     * Записывает тестирующий класс по модели, вынося большие таблицы данных параметризованных тестов в файлы
+     *
+     * @param dataFiles Файлы данных {@code @CsvFileSource} тестирующего класса, null - данные остаются в коде
+     * @see #setCsvFileThreshold(int)
+     */
+    public void generate(CodeWriter writer, String testClassName, ClassModel classModel, MethodModel methodModel,
+                         TestType testType, TestDataFiles dataFiles) {
+        if (classModel == null) this.throwNullPointerException(ClassModel.class);
+        if (testType == TestType.BENCHMARK) {
+            this.templates.get(Constants.Strings.Templates.benchmarkClass).render(writer,
+                    new BenchmarkClassScope(testClassName, classModel, methodModel != null ? List.of(methodModel) : classModel.methods()));
+            return;
         }
-        this.append(sb, "", Constants.Strings.Code.closeBrace);
-        //endregion
+        this.templates.get(Constants.Strings.Templates.testClass)
+                .render(writer, new ClassScope(testClassName, classModel, methodModel, testType, dataFiles));
+    }
 
-        if (psiMethod != null) {
-            sb.append(this.generate(String.format("this.%s.", testObjectName), psiMethod, testType));
+    /**
+     * Записывает тесты всех методов класса либо одного выбранного метода
+     */
+    private void writeTests(CodeWriter writer, String testObjectName, ClassModel classModel, MethodModel methodModel,
+                            TestType testType, TestDataFiles dataFiles) {
+        if (methodModel != null) {
+            this.writeTest(writer, "this." + testObjectName + ".", methodModel, 0, testType, dataFiles);
         } else {
-            for (PsiMethod method : psiClass.getMethods())
-                sb.append(this.generate(String.format("%s.", testObjectName), method, testType));
+            this.writeTests(writer, testObjectName + ".", classModel.methods(), testType, dataFiles);
         }
-
-        //region Закрывающая скобка тела класса
-        sb.append(Constants.Strings.Code.closeBrace);
-        sb.append(Constants.Strings.Code.newLine);
-        //endregion
-        // endregion
-        return sb.toString();
     }
 
+    /**
+     * Записывает тесты методов в порядке модели класса, для больших классов - параллельно.
+     * Имена файлов данных перегрузок задаются их номерами в порядке объявления и не зависят от порядка тестов.
+     */
+    private void writeTests(CodeWriter writer, String prefix, List<MethodModel> methods, TestType testType, TestDataFiles dataFiles) {
+        if (this.isParallel(methods.size())) {
+            this.generateConcurrently(writer, prefix, methods, testType, dataFiles);
+        } else {
+            for (MethodModel method : methods) {
+                ProgressManager.checkCanceled();
+                this.writeTest(writer, prefix, method, method.overloadIndex(), testType, dataFiles);
+            }
+        }
+    }
+
+    //region Параллельная генерация
+    /**
+     * Параллельная генерация доступна только внутри запущенной платформы и для достаточно больших классов
+     */
+    private boolean isParallel(int methodCount) {
+        return methodCount >= this.parallelThreshold && ApplicationManager.getApplication() != null;
+    }
+
+    /**
+     * Генерирует тесты методов параллельно в общем пуле платформы и записывает их в порядке модели класса.
+     * Модели методов не обращаются к PSI, поэтому рабочим потокам не требуется действие чтения.
+     */
+    private void generateConcurrently(CodeWriter writer, String prefix, List<MethodModel> methods, TestType testType,
+                                      TestDataFiles dataFiles) {
+        String[] methodTexts = new String[methods.size()];
+        List<Integer> indices = IntStream.range(0, methods.size()).boxed().toList();
+        boolean isCompleted = JobLauncher.getInstance().invokeConcurrentlyUnderProgress(indices,
+                ProgressManager.getInstance().getProgressIndicator(), index -> {
+                    StringBuilder sb = new StringBuilder();
+                    MethodModel method = methods.get(index);
+                    this.writeTest(new CodeWriter(sb), prefix, method, method.overloadIndex(), testType, dataFiles);
+                    methodTexts[index] = sb.toString();
+                    return true;
+                });
+        if (!isCompleted) throw new ProcessCanceledException();
+        for (String methodText : methodTexts)
+            writer.print(methodText);
+    }
+    //endregion
+
     public String generate(PsiClass psiClass, PsiMethod psiMethod, TestType testType) {
         return generate(psiClass.getName(), psiClass, psiMethod, testType);
     }
 
-    @SuppressWarnings("DataFlowIssue")
     public String generate(String prefix, PsiMethod psiMethod, TestType testType) {
-        //region Проверка ссылки на объект
-        if (psiMethod == null) this.throwNullPointerException(PsiMethod.class);
-        //endregion
         StringBuilder sb = new StringBuilder();
-        //region Вывод отладной информации о методе
-        if (this.isDebug)
-            this.printLn(this.getInfo(psiMethod));
+        this.generate(new CodeWriter(sb), prefix, psiMethod, testType);
+        return sb.toString();
+    }
+
+    public String generate(String prefix, MethodModel methodModel, TestType testType) {
+        StringBuilder sb = new StringBuilder();
+        this.generate(new CodeWriter(sb), prefix, methodModel, testType);
+        return sb.toString();
+    }
+
+    /**
+     * Записывает тестирующий метод в общий писатель кода
+     *
+     * @param writer    Писатель, в который записывается метод
+     * @param prefix    Префикс вызова тестируемого метода, например {@code "car."}
+     * @param psiMethod Тестируемый метод
+     * @param testType  Тип теста
+     */
+    public void generate(CodeWriter writer, String prefix, PsiMethod psiMethod, TestType testType) {
+        this.generate(writer, prefix, this.createModel(psiMethod), testType);
+    }
+
+    /**
+     * Записывает тестирующий метод по модели. Не обращается к PSI и может выполняться в любом потоке.
+     *
+     * @param writer      Писатель, в который записывается метод
+     * @param prefix      Префикс вызова тестируемого метода, например {@code "car."}
+     * @param methodModel Модель тестируемого метода
+     * @param testType    Тип теста
+     */
+    public void generate(CodeWriter writer, String prefix, MethodModel methodModel, TestType testType) {
+        this.writeTest(writer, prefix, methodModel, 0, testType, null);
+    }
+
+    /**
+     * Записывает тестирующий метод, выбирая источник данных параметризованного теста:
+     * {@code @CsvSource} для небольших таблиц, {@code @MethodSource} для больших таблиц и параметров,
+     * не представимых в CSV, {@code @CsvFileSource} - если таблица достигла порога выноса в файл
+     *
+     * @param overloadIndex Номер перегрузки метода в порядке объявления, задает имя файла данных
+     */
+    private void writeTest(CodeWriter writer, String prefix, MethodModel methodModel, int overloadIndex, TestType testType,
+                           TestDataFiles dataFiles) {
+        //region Проверка ссылки на объект
+        if (methodModel == null) this.throwNullPointerException(MethodModel.class);
         //endregion
+        GenerationMetrics.Measurement rendering = this.metrics.start(GenerationMetrics.Phase.RENDERING);
+        if (testType == TestType.BENCHMARK) {
+            this.templates.get(Constants.Strings.Templates.benchmark)
+                    .render(writer, new BenchmarkScope(prefix, methodModel, methodModel.name(), false));
+            this.metrics.stop(rendering);
+            return;
+        }
+        if (testType != TestType.PARAMETERIZED || methodModel.parameters().isEmpty()) {
+            this.templates.get(Constants.Strings.Templates.unitTest).render(writer, new MethodScope(prefix, methodModel, List.of()));
+            this.metrics.stop(rendering);
+            return;
+        }
+        List<ExampleData[]> rows = this.createRows(methodModel);
+        MethodScope scope = new MethodScope(prefix, methodModel, rows);
+        String templateName;
+        if (!this.isCsvConvertible(rows)) {
+            templateName = Constants.Strings.Templates.parameterizedMethodSourceTest;
+        } else if (dataFiles != null && this.csvFileThreshold > 0 && rows.size() >= this.csvFileThreshold) {
+            scope.dataFile = dataFiles.add(this.getTestMethodName(methodModel.name()), overloadIndex, this.toCsvFile(methodModel, rows));
+            templateName = Constants.Strings.Templates.parameterizedCsvFileTest;
+        } else if (rows.size() > this.maxCsvRows || this.getCsvWidth(rows) > this.maxCsvWidth) {
+            templateName = Constants.Strings.Templates.parameterizedMethodSourceTest;
+        } else {
+            templateName = Constants.Strings.Templates.parameterizedTest;
+        }
+        this.templates.get(templateName).render(writer, scope);
+        this.metrics.stop(rendering);
+    }
+
+    //region Данные параметризованных тестов
+    /**
+     * Строки данных параметризованного теста: граничные значения параметров, попарно скомбинированные
+     * вместо полного перебора. Первая строка состоит из примеров значений.
+     *
+     * @see BoundaryValues
+     * @see PairwiseCombinations
+     */
+    private List<ExampleData[]> createRows(MethodModel methodModel) {
+        List<ParameterModel> parameters = methodModel.parameters();
+        List<List<ExampleData>> values = new ArrayList<>(parameters.size());
+        int[] sizes = new int[parameters.size()];
+        for (int i = 0; i < sizes.length; i++) {
+            ParameterModel parameter = parameters.get(i);
+            values.add(BoundaryValues.of(parameter.category(), parameter.example()));
+            sizes[i] = values.get(i).size();
+        }
+        List<int[]> combinations = PairwiseCombinations.generate(sizes);
+        List<ExampleData[]> rows = new ArrayList<>(combinations.size());
+        for (int[] combination : combinations) {
+            ExampleData[] row = new ExampleData[combination.length];
+            for (int i = 0; i < row.length; i++)
+                row[i] = values.get(i).get(combination[i]);
+            rows.add(row);
+        }
+        return rows;
+    }
 
-        //region Основные свойства метода
-        String methodName = psiMethod.getName();
+    private boolean isCsvConvertible(List<ExampleData[]> rows) {
+        for (ExampleData[] row : rows) {
+            for (ExampleData value : row) {
+                if (!value.isCsvConvertible()) return false;
+            }
+        }
+        return true;
+    }
 
-        PsiParameter[] parameters = psiMethod.getParameterList().getParameters();
-        String testMethodName = "test" + capitalize(methodName);
-        StringJoiner parameterListWithTypes = new StringJoiner(", ");
-        StringJoiner parameterList = new StringJoiner(", ");
-        for (PsiParameter parameter : parameters) {
-            String parameterType = parameter.getType().getPresentableText();
-            String name = parameter.getName();
-            parameterListWithTypes.add(parameterType + " " + name);
+    /**
+     * Длина самой длинной строки {@code @CsvSource} без кавычек
+     */
+    private int getCsvWidth(List<ExampleData[]> rows) {
+        int width = 0;
+        for (ExampleData[] row : rows) {
+            int rowWidth = 2 * (row.length - 1);
+            for (ExampleData value : row)
+                rowWidth += value.getCsvValue().length();
+            width = Math.max(width, rowWidth);
         }
-        //endregion
+        return width;
+    }
 
-        if (testType == TestType.PARAMETERIZED && parameters.length > 0) {
-            sb.append("@ParameterizedTest\n");
-            sb.append("@CsvSource({\n");
-            //region Добавление тестовых строк данных
-            StringJoiner csvData = new StringJoiner("\",\n    \"", "    \"", "\"\n");
-            StringBuilder testData = new StringBuilder();
-            for (int i = 0; i < parameters.length; i++) {
-                if (i > 0) testData.append(", ");
-                PsiType type = parameters[i].getType();
-                testData.append(generateExampleData(type));
+    /**
+     * Содержимое файла {@code @CsvFileSource}: строка заголовка с именами параметров и строки данных
+     */
+    private String toCsvFile(MethodModel methodModel, List<ExampleData[]> rows) {
+        StringBuilder sb = new StringBuilder();
+        List<ParameterModel> parameters = methodModel.parameters();
+        for (int i = 0; i < parameters.size(); i++) {
+            if (i > 0) sb.append(',');
+            sb.append(parameters.get(i).name());
+        }
+        sb.append(Constants.Strings.Code.newLine);
+        for (ExampleData[] row : rows) {
+            for (int i = 0; i < row.length; i++) {
+                if (i > 0) sb.append(',');
+                sb.append(TestDataFiles.toCell(row[i].getCsvValue()));
             }
-            csvData.add(testData.toString());
-            csvData.add(testData.toString());
-            sb.append(csvData.toString());
-            //endregion
-            sb.append("})\n");
-            //region Генерация тела параметризованного теста
-            sb.append("public void ").append(testMethodName).append("(");
-            sb.append(parameterListWithTypes.toString());
-            sb.append(") {\n");
-            this.append(sb, Constants.Strings.Code.tabulation, "// TODO: Тестирование логики", Constants.Strings.Code.newLine);
-            this.append(sb, Constants.Strings.Code.tabulation, this.generateMethodAssert(prefix, psiMethod).split(Constants.Strings.Code.newLine), Constants.Strings.Code.newLine);
-            this.append(sb, Constants.Strings.Code.tabulation, "// TODO: Добавить другие проверки", Constants.Strings.Code.newLine);
-            sb.append("}\n");
-            //endregion
-        } else {
-            //region Генерация тела юнит теста
-            for (PsiParameter parameter : parameters) {
-                String parameterType = parameter.getType().getPresentableText();
-                String name = parameter.getName();
-                // Здесь мы используем просто имена переменных,
-                // в реальном случае может потребоваться инициализация с дефолтными значениями
-                parameterList.add(parameterType + " " + name);
-            }
-            this.append(sb, "@Test", Constants.Strings.Code.newLine);
-            this.append(sb, String.format("public void %s() ", testMethodName), Constants.Strings.Code.openBrace);
-            this.append(sb, Constants.Strings.Code.tabulation, "// TODO: Тестирование логики", Constants.Strings.Code.newLine);
-            this.append(sb, Constants.Strings.Code.tabulation, this.generateMethodAssert(prefix, psiMethod).split(Constants.Strings.Code.newLine), Constants.Strings.Code.newLine);
-            this.append(sb, Constants.Strings.Code.tabulation, "// TODO: Добавить другие проверки", Constants.Strings.Code.newLine);
-            sb.append(Constants.Strings.Code.closeBrace);
-            //endregion
+            sb.append(Constants.Strings.Code.newLine);
         }
-        String result = sb.toString();
-        sb.setLength(0);
-        return result;
+        return sb.toString();
     }
+    //endregion
 
     public String generate(PsiMethod psiMethod, TestType testType) {
         return this.generate("", psiMethod, testType);
@@ -491,49 +949,872 @@ public class UnitTestsGenerator {
     }
 
 
-    public void generate(Project project, PsiElement element, PsiDirectory directory, TestType testType) {
+    /**
+     * Формирует изменения проекта без их применения: новый тестовый файл либо, в инкрементальном режиме,
+     * изменение уже существующего тестирующего класса.
+     * Требует доступа на чтение PSI, поэтому может выполняться в фоновом потоке под действием чтения.
+     *
+     * @param element   Класс или метод, для которого генерируются тесты
+     * @param directory Директория, в которую будет записан файл
+     * @param testType  Тип теста
+     * @return Подготовленный результат генерации, null - все методы класса покрыты по отчету о покрытии
+     */
+    public GenerationResult prepare(PsiElement element, PsiDirectory directory, TestType testType) {
         if (!(element instanceof PsiClass) && !(element instanceof PsiMethod)) {
             throw new IllegalArgumentException(Constants.Strings.Release.Errors.ILLEGAL_ARGUMENT);
         }
-
-        if (directory == null) {
-            System.out.println("PsiDirectory is null");
-            return;
-        }
+        if (directory == null) this.throwNullPointerException(PsiDirectory.class);
 
         // Генерация содержимого файла в зависимости от типа теста
 
         String baseName;
 
         if (element instanceof PsiClass) {
-            baseName = ((PsiClass) element).getName() + "Tests";
+            baseName = ((PsiClass) element).getName() + testType.getClassSuffix();
         } else if (element instanceof PsiMethod) {
             PsiClass containingClass = ((PsiMethod) element).getContainingClass();
-            baseName = containingClass.getName() + "_" + ((PsiMethod) element).getName() + "Tests";
+            baseName = containingClass.getName() + "_" + ((PsiMethod) element).getName() + testType.getClassSuffix();
         } else {
             throw new IllegalArgumentException("Unsupported PsiElement type");
         }
 
+        PsiMethod psiMethod = element instanceof PsiMethod method ? method : null;
+        PsiClass psiClass = psiMethod != null ? psiMethod.getContainingClass() : (PsiClass) element;
+
+        //region Поиск существующего тестирующего класса
+        // Класс бенчмарков не дополняется: новым методам нужны поля состояния
+        if (this.isIncremental && testType != TestType.BENCHMARK) {
+            // Тест метода добавляется в тестирующий класс всего класса, если он уже существует
+            PsiClass testClass = this.findTestClass(directory, psiClass.getName() + "Tests");
+            if (testClass == null && psiMethod != null)
+                testClass = this.findTestClass(directory, baseName);
+            if (testClass != null)
+                return this.prepareUpdate(testClass, psiClass, psiMethod, testType);
+        }
+        //endregion
+
+        PsiMethod[] methods = psiMethod != null ? new PsiMethod[]{psiMethod} : this.getTestedMethods(psiClass);
+        if (methods.length == 0 && this.coverageReport != null) return null;
+        String fileName = this.allocateFileName(directory, baseName,
+                psiMethod != null ? baseName + ":" + this.getTestFingerprint(psiMethod) : baseName);
+        TestDataFiles dataFiles = new TestDataFiles(fileName);
+        StringBuilder sb = new StringBuilder();
+        ClassModel classModel = this.createModel(psiClass, psiMethod == null ? methods : PsiMethod.EMPTY_ARRAY);
+        this.generate(new CodeWriter(sb), fileName, classModel,
+                psiMethod != null ? this.createModel(psiMethod) : null, testType, dataFiles);
+
+        return this.createTestFile(directory, fileName, sb.toString(), dataFiles, psiClass, methods, testType,
+                testType != TestType.BENCHMARK && classModel.concurrent());
+    }
+
+    /**
+     * Создает результат генерации нового файла вместе с записями индекса сгенерированных тестов
+     */
+    private GeneratedTestFile createTestFile(PsiDirectory directory, String fileName, String content, TestDataFiles dataFiles,
+                                             PsiClass psiClass, PsiMethod[] methods, TestType testType, boolean isConcurrent) {
+        String sourceFileUrl = GeneratedTestsIndex.getFileUrl(psiClass);
+        Map<String, String> indexEntries = new HashMap<>();
+        if (sourceFileUrl != null) {
+            for (PsiMethod method : methods)
+                indexEntries.put(GeneratedTestsIndex.getSignatureKey(method, testType), fileName + "." + this.getTestMethodName(method));
+        }
+        this.metrics.add(GenerationMetrics.Counter.CHARACTERS, content.length());
+        return new GeneratedTestFile(directory, fileName, content, dataFiles.getFiles(), sourceFileUrl, indexEntries, isConcurrent);
+    }
+
+    //region Генерация тестов иерархии классов
+    /**
+     * Подготавливает тесты иерархии: абстрактный базовый тест с общей фикстурой и тестами методов базового класса
+     * и по одному наследующему его тесту на каждую реализацию. Реализация создается в {@code createInstance()},
+     * а в тест реализации попадают только методы, объявленные в ней и не переопределяющие методы базового класса,
+     * поэтому общие тесты генерируются один раз. Требует доступа на чтение PSI.
+     *
+     * @param baseClass       Абстрактный класс или интерфейс
+     * @param implementations Конкретные реализации базового класса
+     * @param testType        Тип теста
+     * @return Базовый тест, затем тесты реализаций
+     */
+    public List<GenerationResult> prepareHierarchy(PsiClass baseClass, List<PsiClass> implementations, TestType testType) {
+        if (baseClass == null) this.throwNullPointerException(PsiClass.class);
+        List<GenerationResult> results = new ArrayList<>(implementations.size() + 1);
+
+        //region Базовый тест
+        PsiMethod[] baseMethods = Arrays.stream(baseClass.getMethods())
+                .filter(method -> !method.isConstructor())
+                .toArray(PsiMethod[]::new);
+        ClassModel baseModel = this.createModel(baseClass, baseMethods);
+        // @Execution наследуется тестами реализаций, поэтому общий тест параллелен, только если параллельны все реализации
+        boolean isConcurrent = baseModel.concurrent()
+                               && implementations.stream().noneMatch(SharedStateAnalyzer::hasSharedState);
+        PsiDirectory baseDirectory = this.getDirectory(baseClass);
+        String baseTestName = this.allocateFileName(baseDirectory, baseModel.name() + "Tests", baseModel.name() + "Tests");
+        TestDataFiles baseDataFiles = new TestDataFiles(baseTestName);
+        StringBuilder sb = new StringBuilder();
+        this.templates.get(Constants.Strings.Templates.hierarchyBaseTestClass)
+                .render(new CodeWriter(sb), new HierarchyScope(baseTestName, baseModel, baseModel, baseTestName, List.of(), testType, baseDataFiles, isConcurrent));
+        results.add(this.createTestFile(baseDirectory, baseTestName, sb.toString(), baseDataFiles, baseClass, baseMethods, testType, isConcurrent));
+        //endregion
+
+        //region Тесты реализаций
+        String baseTestQualifiedName = baseModel.packageName().isEmpty() ? baseTestName : baseModel.packageName() + "." + baseTestName;
+        for (PsiClass implementation : implementations) {
+            ProgressManager.checkCanceled();
+            PsiMethod[] ownMethods = Arrays.stream(implementation.getMethods())
+                    .filter(method -> !method.isConstructor() && method.findSuperMethods(baseClass).length == 0)
+                    .toArray(PsiMethod[]::new);
+            ClassModel model = this.createModel(implementation, ownMethods);
+            PsiDirectory directory = this.getDirectory(implementation);
+            String testName = this.allocateFileName(directory, model.name() + "Tests", model.name() + "Tests");
+            List<String> imports = model.packageName().equals(baseModel.packageName())
+                    ? List.of()
+                    : List.of(baseClass.getQualifiedName(), baseTestQualifiedName);
+            TestDataFiles dataFiles = new TestDataFiles(testName);
+            sb.setLength(0);
+            this.templates.get(Constants.Strings.Templates.hierarchySubclassTestClass)
+                    .render(new CodeWriter(sb), new HierarchyScope(testName, model, baseModel, baseTestName, imports, testType, dataFiles, isConcurrent));
+            results.add(this.createTestFile(directory, testName, sb.toString(), dataFiles, implementation, ownMethods, testType, false));
+        }
+        //endregion
+        return results;
+    }
+
+    private PsiDirectory getDirectory(PsiClass psiClass) {
+        PsiDirectory directory = psiClass.getContainingFile().getContainingDirectory();
+        if (directory == null) this.throwNullPointerException(PsiDirectory.class);
+        return directory;
+    }
+    //endregion
+
+    /**
+     * Выбирает свободное имя файла в директории, добавляя порядковую цифру к занятому имени
+     *
+     * @param owner Ключ элемента, для которого создается файл: повторная подготовка того же элемента получает то же имя
+     */
+    private String allocateFileName(PsiDirectory directory, String baseName, String owner) {
+        Project project = directory.getProject();
+        if (project != null && directory.getVirtualFile() != null)
+            return TestFileNameAllocator.getInstance(project).allocate(directory, baseName, Constants.Strings.Extensions.java, owner);
+        // Директория вне файловой системы проекта проверяется напрямую
         String fileName = baseName;
         int counter = 1;
-
-        // Проверка на существование файла и добавление порядковой цифры
-        while (directory.findFile(fileName + Constants.Strings.Extensions.java) != null) {
+        while (directory.findFile(fileName + "." + Constants.Strings.Extensions.java) != null) {
             fileName = baseName + counter;
             counter++;
         }
+        return fileName;
+    }
 
-        String fileContent = this.generate(fileName, element, testType);
-        // Создание PsiFile
+    //region Области видимости шаблонов
+    private void throwUnknownVariable(String name) throws IllegalArgumentException {
+        throw new IllegalArgumentException("Неизвестная переменная шаблона: " + name);
+    }
 
-        String finalFileName = fileName;
-        WriteCommandAction.runWriteCommandAction(project, () -> {
-            // Создание PsiFile
-            PsiFile file = PsiFileFactory.getInstance(project).createFileFromText(finalFileName + "." + Constants.Strings.Extensions.java, fileContent);
+    /**
+     * Переменные шаблона тестирующего класса
+     */
+    private class ClassScope implements TemplateScope {
+        private final String testClassName;
+        private final ClassModel classModel;
+        private final MethodModel methodModel;
+        private final TestType testType;
+        private final TestDataFiles dataFiles;
+        private final String testObjectName;
 
-            // Добавление файла в директорию
-            directory.add(file);
-        });
+        private ClassScope(String testClassName, ClassModel classModel, MethodModel methodModel, TestType testType,
+                           TestDataFiles dataFiles) {
+            this.testClassName = testClassName;
+            this.classModel = classModel;
+            this.methodModel = methodModel;
+            this.testType = testType;
+            this.dataFiles = dataFiles;
+            this.testObjectName = getTestObjectName(classModel.name());
+        }
+
+        @Override
+        public void writeValue(CodeWriter writer, String name) {
+            switch (name) {
+                case "header":
+                    writeClassHeader(writer, this.testClassName, this.classModel);
+                    break;
+                case "className":
+                    writer.print(this.classModel.name());
+                    break;
+                case "testObjectName":
+                    writer.print(this.testObjectName);
+                    break;
+                case "setUpAnnotation":
+                    writer.print(this.classModel.sharedFixture() ? "BeforeAll" : "BeforeEach");
+                    break;
+                case "constructorCall":
+                    writeMethodCallWithConstants(writer, this.classModel.constructor());
+                    break;
+                case "tests":
+                    writeTests(writer, this.testObjectName, this.classModel, this.methodModel, this.testType, this.dataFiles);
+                    break;
+                default:
+                    throwUnknownVariable(name);
+            }
+        }
+
+        @Override
+        public int getBlockSize(String name) {
+            return name.equals("constructor") && this.classModel.constructor() != null ? 1 : 0;
+        }
+    }
+
+    /**
+     * Переменные шаблонов тестирующего метода
+     */
+    private class MethodScope implements TemplateScope {
+        private final String prefix;
+        private final MethodModel methodModel;
+        private final ParameterScope[] parameters;
+        private final List<ExampleData[]> rows;
+        /**
+         * Имя файла данных {@code @CsvFileSource}
+         */
+        private String dataFile;
+
+        private MethodScope(String prefix, MethodModel methodModel, List<ExampleData[]> rows) {
+            this.prefix = prefix;
+            this.methodModel = methodModel;
+            this.parameters = createParameterScopes(methodModel);
+            this.rows = rows;
+        }
+
+        @Override
+        public void writeValue(CodeWriter writer, String name) {
+            switch (name) {
+                case "methodName":
+                    writer.print(this.methodModel.name());
+                    break;
+                case "MethodName":
+                    writeCapitalized(writer, this.methodModel.name());
+                    break;
+                case "assert":
+                    writeGuardedAssert(writer, this.prefix, this.methodModel, !this.rows.isEmpty());
+                    break;
+                case "timeout":
+                    writeTimeout(writer);
+                    break;
+                case "argumentsMethodName":
+                    writer.print(getTestMethodName(this.methodModel.name())).print(ARGUMENTS_SUFFIX);
+                    break;
+                case "dataFile":
+                    writer.print(this.dataFile);
+                    break;
+                default:
+                    throwUnknownVariable(name);
+            }
+        }
+
+        @Override
+        public int getBlockSize(String name) {
+            switch (name) {
+                case "rows":
+                    return this.rows.size();
+                case "parameters":
+                    return this.parameters.length;
+                default:
+                    return 0;
+            }
+        }
+
+        @Override
+        public TemplateScope getBlockScope(String name, int index) {
+            switch (name) {
+                case "parameters":
+                    return this.parameters[index];
+                case "rows":
+                    return new RowScope(this.rows.get(index));
+                default:
+                    return this;
+            }
+        }
+
+        /**
+         * Строка данных: блок {@code parameters} дает значения параметров этой строки,
+         * остальные переменные берутся из теста
+         */
+        private class RowScope implements TemplateScope {
+            private final ExampleData[] row;
+
+            private RowScope(ExampleData[] row) {
+                this.row = row;
+            }
+
+            @Override
+            public void writeValue(CodeWriter writer, String name) {
+                MethodScope.this.writeValue(writer, name);
+            }
+
+            @Override
+            public int getBlockSize(String name) {
+                return MethodScope.this.getBlockSize(name);
+            }
+
+            @Override
+            public TemplateScope getBlockScope(String name, int index) {
+                return name.equals("parameters")
+                        ? new ParameterScope(methodModel.parameters().get(index), this.row[index])
+                        : MethodScope.this.getBlockScope(name, index);
+            }
+        }
+    }
+
+    /**
+     * Переменные шаблона утверждения для проверяемого значения
+     */
+    private class AssertScope implements TemplateScope {
+        private final String typeText;
+        private final String prefix;
+        private final MethodModel methodModel;
+        private final String actualExpression;
+        private final boolean isParameterized;
+        private ParameterScope[] parameters;
+
+        private AssertScope(String typeText, String prefix, MethodModel methodModel, String actualExpression,
+                            boolean isParameterized) {
+            this.typeText = typeText;
+            this.prefix = prefix;
+            this.methodModel = methodModel;
+            this.actualExpression = actualExpression;
+            this.isParameterized = isParameterized;
+        }
+
+        @Override
+        public void writeValue(CodeWriter writer, String name) {
+            switch (name) {
+                case "type":
+                    writer.print(this.typeText);
+                    break;
+                case "actual":
+                    writeActual(writer, this.prefix, this.methodModel, this.actualExpression);
+                    break;
+                default:
+                    throwUnknownVariable(name);
+            }
+        }
+
+        // Параметры метода проверяются в утверждениях void-метода обычного теста
+        @Override
+        public int getBlockSize(String name) {
+            if (!name.equals("parameters") || this.methodModel == null || this.isParameterized) return 0;
+            if (this.parameters == null) this.parameters = createParameterScopes(this.methodModel);
+            return this.parameters.length;
+        }
+
+        @Override
+        public TemplateScope getBlockScope(String name, int index) {
+            return this.parameters[index];
+        }
+    }
+
+    /**
+     * Переменные шаблонов базового теста иерархии и тестов ее реализаций.
+     * Для базового теста модель класса совпадает с моделью базового класса.
+     */
+    private class HierarchyScope implements TemplateScope {
+        private final String testClassName;
+        private final ClassModel classModel;
+        private final ClassModel baseModel;
+        private final String baseTestClassName;
+        private final List<String> imports;
+        private final TestType testType;
+        private final TestDataFiles dataFiles;
+        private final String testObjectName;
+        private final boolean isConcurrent;
+
+        private HierarchyScope(String testClassName, ClassModel classModel, ClassModel baseModel, String baseTestClassName,
+                               List<String> imports, TestType testType, TestDataFiles dataFiles, boolean isConcurrent) {
+            this.testClassName = testClassName;
+            this.classModel = classModel;
+            this.baseModel = baseModel;
+            this.baseTestClassName = baseTestClassName;
+            this.imports = imports;
+            this.testType = testType;
+            this.dataFiles = dataFiles;
+            this.testObjectName = getTestObjectName(baseModel.name());
+            this.isConcurrent = isConcurrent;
+        }
+
+        @Override
+        public void writeValue(CodeWriter writer, String name) {
+            switch (name) {
+                case "package":
+                    writer.print(this.classModel.packageName());
+                    break;
+                case "testClassName":
+                    writer.print(this.testClassName);
+                    break;
+                case "className":
+                    writer.print(this.classModel.name());
+                    break;
+                case "baseClassName":
+                    writer.print(this.baseModel.name());
+                    break;
+                case "baseTestClassName":
+                    writer.print(this.baseTestClassName);
+                    break;
+                case "testObjectName":
+                    writer.print(this.testObjectName);
+                    break;
+                case "constructorCall":
+                    // Без объявленных конструкторов вызывается конструктор по умолчанию
+                    if (this.classModel.constructor() != null)
+                        writeMethodCallWithConstants(writer, this.classModel.constructor());
+                    else
+                        writer.print(this.classModel.name()).print("()");
+                    break;
+                case "tests":
+                    // Собственные методы реализации вызываются через приведение общего объекта к ее типу
+                    String prefix = this.classModel == this.baseModel
+                            ? this.testObjectName + "."
+                            : "((" + this.classModel.name() + ") " + this.testObjectName + ").";
+                    writeTests(writer, prefix, this.classModel.methods(), this.testType, this.dataFiles);
+                    break;
+                default:
+                    throwUnknownVariable(name);
+            }
+        }
+
+        @Override
+        public int getBlockSize(String name) {
+            if (name.equals("concurrent")) return this.isConcurrent ? 1 : 0;
+            return name.equals("imports") ? this.imports.size() : 0;
+        }
+
+        @Override
+        public TemplateScope getBlockScope(String name, int index) {
+            return (writer, variable) -> {
+                if (variable.equals("import"))
+                    writer.print(this.imports.get(index));
+                else
+                    throwUnknownVariable(variable);
+            };
+        }
+    }
+
+    /**
+     * Переменные шаблона класса бенчмарков JMH: параметры всех методов становятся полями состояния,
+     * которые заполняются примерами значений в {@code @Setup}, чтобы JIT не сворачивал константы
+     */
+    private class BenchmarkClassScope implements TemplateScope {
+        private final String testClassName;
+        private final ClassModel classModel;
+        private final String testObjectName;
+        private final BenchmarkScope[] benchmarks;
+        private final List<BenchmarkFieldScope> fields = new ArrayList<>();
+
+        private BenchmarkClassScope(String testClassName, ClassModel classModel, List<MethodModel> methods) {
+            String suffix = TestType.BENCHMARK.getClassSuffix();
+            this.testClassName = testClassName.contains(suffix) ? testClassName : testClassName + suffix;
+            this.classModel = classModel;
+            this.testObjectName = getTestObjectName(classModel.name());
+            this.benchmarks = new BenchmarkScope[methods.size()];
+            // Перегрузки получают имена с порядковой цифрой, имя setUp занято фикстурой
+            Set<String> names = new HashSet<>(List.of("setUp"));
+            for (int i = 0; i < this.benchmarks.length; i++) {
+                MethodModel method = methods.get(i);
+                boolean isConstructor = method.name().equals(classModel.name());
+                String baseName = isConstructor ? "new" + method.name() : method.name();
+                String benchmarkName = baseName;
+                for (int counter = 1; !names.add(benchmarkName); counter++)
+                    benchmarkName = baseName + counter;
+                this.benchmarks[i] = new BenchmarkScope("this." + this.testObjectName + ".", method, benchmarkName, isConstructor);
+                this.fields.addAll(Arrays.asList(this.benchmarks[i].fields));
+            }
+        }
+
+        @Override
+        public void writeValue(CodeWriter writer, String name) {
+            switch (name) {
+                case "package":
+                    writer.print(this.classModel.packageName());
+                    break;
+                case "testClassName":
+                    writer.print(this.testClassName);
+                    break;
+                case "className":
+                    writer.print(this.classModel.name());
+                    break;
+                case "testObjectName":
+                    writer.print(this.testObjectName);
+                    break;
+                case "constructorCall":
+                    writeMethodCallWithConstants(writer, this.classModel.constructor());
+                    break;
+                case "benchmarks":
+                    for (BenchmarkScope benchmark : this.benchmarks) {
+                        ProgressManager.checkCanceled();
+                        GenerationMetrics.Measurement rendering = metrics.start(GenerationMetrics.Phase.RENDERING);
+                        templates.get(Constants.Strings.Templates.benchmark).render(writer, benchmark);
+                        metrics.stop(rendering);
+                    }
+                    break;
+                default:
+                    throwUnknownVariable(name);
+            }
+        }
+
+        @Override
+        public int getBlockSize(String name) {
+            switch (name) {
+                case "constructor":
+                    return this.classModel.constructor() != null ? 1 : 0;
+                case "fields":
+                    return this.fields.size();
+                default:
+                    return 0;
+            }
+        }
+
+        @Override
+        public TemplateScope getBlockScope(String name, int index) {
+            return name.equals("fields") ? this.fields.get(index) : this;
+        }
+    }
+
+    /**
+     * Переменные шаблона бенчмарка метода. Результат метода, как и созданный конструктором объект,
+     * передается в {@code Blackhole}, чтобы вызов не был удален как мертвый код.
+     */
+    private class BenchmarkScope implements TemplateScope {
+        private final String prefix;
+        private final MethodModel methodModel;
+        private final String benchmarkName;
+        private final boolean isConstructor;
+        private final BenchmarkFieldScope[] fields;
+
+        private BenchmarkScope(String prefix, MethodModel methodModel, String benchmarkName, boolean isConstructor) {
+            this.prefix = prefix;
+            this.methodModel = methodModel;
+            this.benchmarkName = benchmarkName;
+            this.isConstructor = isConstructor;
+            List<ParameterModel> parameters = methodModel.parameters();
+            this.fields = new BenchmarkFieldScope[parameters.size()];
+            for (int i = 0; i < this.fields.length; i++) {
+                ParameterModel parameter = parameters.get(i);
+                this.fields[i] = new BenchmarkFieldScope(benchmarkName + capitalize(parameter.name()), parameter);
+            }
+        }
+
+        private boolean hasResult() {
+            return this.isConstructor || this.methodModel.returnCategory() != TypeCategory.VOID;
+        }
+
+        @Override
+        public void writeValue(CodeWriter writer, String name) {
+            switch (name) {
+                case "benchmarkName":
+                    writer.print(this.benchmarkName);
+                    break;
+                case "call":
+                    if (this.isConstructor) {
+                        writer.print("new ").print(this.methodModel.name());
+                    } else {
+                        writer.print(this.prefix).print(this.methodModel.name());
+                    }
+                    writer.print('(');
+                    for (int i = 0; i < this.fields.length; i++) {
+                        if (i > 0) writer.print(", ");
+                        writer.print("this.").print(this.fields[i].name);
+                    }
+                    writer.print(')');
+                    break;
+                default:
+                    throwUnknownVariable(name);
+            }
+        }
+
+        @Override
+        public int getBlockSize(String name) {
+            switch (name) {
+                case "result":
+                    return this.hasResult() ? 1 : 0;
+                case "void":
+                    return this.hasResult() ? 0 : 1;
+                case "parameters":
+                    return this.fields.length;
+                default:
+                    return 0;
+            }
+        }
+
+        @Override
+        public TemplateScope getBlockScope(String name, int index) {
+            return name.equals("parameters") ? this.fields[index] : this;
+        }
+    }
+
+    /**
+     * Переменные поля состояния бенчмарка, хранящего аргумент метода
+     */
+    private class BenchmarkFieldScope implements TemplateScope {
+        private final String name;
+        private final ParameterModel parameter;
+
+        private BenchmarkFieldScope(String name, ParameterModel parameter) {
+            this.name = name;
+            this.parameter = parameter;
+        }
+
+        @Override
+        public void writeValue(CodeWriter writer, String name) {
+            switch (name) {
+                case "name":
+                    writer.print(this.name);
+                    break;
+                case "type":
+                    writer.print(this.parameter.type());
+                    break;
+                case "example":
+                    writer.print(this.parameter.example().expression());
+                    break;
+                default:
+                    throwUnknownVariable(name);
+            }
+        }
+    }
+
+    private ParameterScope[] createParameterScopes(MethodModel methodModel) {
+        List<ParameterModel> parameters = methodModel.parameters();
+        ParameterScope[] scopes = new ParameterScope[parameters.size()];
+        for (int i = 0; i < scopes.length; i++)
+            scopes[i] = new ParameterScope(parameters.get(i));
+        return scopes;
+    }
+
+    /**
+     * Переменные параметра метода
+     */
+    private class ParameterScope implements TemplateScope {
+        private final ParameterModel parameter;
+        /**
+         * Значение параметра в строке данных
+         */
+        private final ExampleData value;
+
+        private ParameterScope(ParameterModel parameter) {
+            this(parameter, parameter.example());
+        }
+
+        private ParameterScope(ParameterModel parameter, ExampleData value) {
+            this.parameter = parameter;
+            this.value = value;
+        }
+
+        @Override
+        public void writeValue(CodeWriter writer, String name) {
+            switch (name) {
+                case "name":
+                    writer.print(this.parameter.name());
+                    break;
+                case "type":
+                    writer.print(this.parameter.type());
+                    break;
+                case "value":
+                    writer.print(this.value.getCsvValue());
+                    break;
+                case "example":
+                    writer.print(this.value.expression());
+                    break;
+                case "argument":
+                    // Единственный null в Arguments.of(...) был бы передан как массив аргументов
+                    if (this.value == ExampleData.NULL)
+                        writer.print('(').print(this.parameter.type()).print(") ");
+                    writer.print(this.value.expression());
+                    break;
+                default:
+                    throwUnknownVariable(name);
+            }
+        }
+    }
+    //endregion
+
+    //region Инкрементальная генерация
+    private PsiClass findTestClass(PsiDirectory directory, String testClassName) {
+        PsiFile psiFile = directory.findFile(testClassName + "." + Constants.Strings.Extensions.java);
+        if (!(psiFile instanceof PsiClassOwner classOwner)) return null;
+        for (PsiClass psiClass : classOwner.getClasses()) {
+            if (testClassName.equals(psiClass.getName())) return psiClass;
+        }
+        return null;
+    }
+
+    private String getTestMethodName(PsiMethod psiMethod) {
+        return this.getTestMethodName(psiMethod.getName());
+    }
+
+    private String getTestMethodName(String methodName) {
+        return "test" + this.capitalize(methodName);
+    }
+
+    /**
+     * Отпечаток тестирующего метода, который будет сгенерирован для метода: имя теста и типы его параметров.
+     * Параметры есть только у параметризованного теста и совпадают с параметрами тестируемого метода.
+     */
+    private String getExpectedTestFingerprint(MethodModel methodModel, TestType testType) {
+        List<ParameterModel> parameters = methodModel.parameters();
+        StringBuilder sb = new StringBuilder("test").append(this.capitalize(methodModel.name())).append('(');
+        if (testType == TestType.PARAMETERIZED) {
+            for (int i = 0; i < parameters.size(); i++) {
+                if (i > 0) sb.append(',');
+                sb.append(parameters.get(i).type());
+            }
+        }
+        return sb.append(')').toString();
+    }
+
+    /**
+     * Отпечаток ожидаемого теста по PSI метода без построения его модели
+     */
+    private String getExpectedTestFingerprint(PsiMethod psiMethod, TestType testType) {
+        StringBuilder sb = new StringBuilder(this.getTestMethodName(psiMethod)).append('(');
+        if (testType == TestType.PARAMETERIZED) {
+            PsiParameter[] parameters = psiMethod.getParameterList().getParameters();
+            for (int i = 0; i < parameters.length; i++) {
+                if (i > 0) sb.append(',');
+                sb.append(parameters[i].getType().getPresentableText());
+            }
+        }
+        return sb.append(')').toString();
+    }
+
+    private String getTestFingerprint(PsiMethod testMethod) {
+        PsiParameter[] parameters = testMethod.getParameterList().getParameters();
+        StringBuilder sb = new StringBuilder(testMethod.getName()).append('(');
+        for (int i = 0; i < parameters.length; i++) {
+            if (i > 0) sb.append(',');
+            sb.append(parameters[i].getType().getPresentableText());
+        }
+        return sb.append(')').toString();
+    }
+
+    /**
+     * Сравнивает методы класса с тестами существующего тестирующего класса и генерирует
+     * тесты только для новых методов и методов с изменившейся сигнатурой.
+     * Тесты, имя которых соответствует методу класса, но сигнатура устарела, не удаляются: новый тест добавляется
+     * рядом с ними.
+     * При заданном отчете о покрытии сравниваются только недостаточно покрытые методы, тесты покрытых методов не изменяются.
+     *
+     * @param testClass Существующий тестирующий класс
+     * @param psiClass  Тестируемый класс
+     * @param psiMethod Тестируемый метод, null - все методы класса
+     * @param testType  Тип теста
+     * @return Изменение тестирующего класса
+     */
+    public TestClassPatch prepareUpdate(PsiClass testClass, PsiClass psiClass, PsiMethod psiMethod, TestType testType) {
+        GeneratedTestsIndex index = this.getIndex(psiClass);
+        String sourceFileUrl = GeneratedTestsIndex.getFileUrl(psiClass);
+        String testClassName = testClass.getName();
+        // Отпечатки существующих тестов собираются только при промахе индекса
+        Map<String, PsiMethod> existingTests = null;
+
+        PsiMethod[] methods = psiMethod != null ? new PsiMethod[]{psiMethod} : this.getTestedMethods(psiClass);
+        String prefix = this.getTestObjectName(psiClass.getName()) + ".";
+        List<String> methodTexts = new ArrayList<>();
+        Set<String> testNames = new HashSet<>();
+        Set<String> actualFingerprints = new HashSet<>();
+        Map<String, String> indexEntries = new HashMap<>();
+        List<PsiMethod> indexedMethods = new ArrayList<>();
+        for (PsiMethod method : methods) {
+            ProgressManager.checkCanceled();
+            String testName = this.getTestMethodName(method);
+            //region Проверка по индексу до построения модели метода
+            if (index != null && sourceFileUrl != null) {
+                String signatureKey = GeneratedTestsIndex.getSignatureKey(method, testType);
+                String indexedTest = testClassName + "." + testName;
+                indexEntries.put(signatureKey, indexedTest);
+                // Запись индекса не обновляется при ручном удалении теста, поэтому тест должен существовать
+                if (indexedTest.equals(index.getTestMethod(sourceFileUrl, signatureKey))
+                    && testClass.findMethodsByName(testName, false).length > 0) {
+                    indexedMethods.add(method);
+                    continue;
+                }
+            }
+            //endregion
+            MethodModel methodModel = this.createModel(method);
+            String fingerprint = this.getExpectedTestFingerprint(methodModel, testType);
+            actualFingerprints.add(fingerprint);
+            testNames.add(testName);
+            if (existingTests == null)
+                existingTests = this.getExistingTests(testClass);
+            if (!existingTests.containsKey(fingerprint)) {
+                String methodText = this.generate(prefix, methodModel, testType);
+                this.metrics.add(GenerationMetrics.Counter.CHARACTERS, methodText.length());
+                methodTexts.add(methodText);
+            }
+        }
+
+        //region Тесты с устаревшей сигнатурой
+        List<PsiMethod> outdatedTests = new ArrayList<>();
+        if (existingTests != null) {
+            // Тест перегрузки, найденный по индексу, актуален, даже если другая перегрузка с тем же именем изменилась
+            for (PsiMethod method : indexedMethods) {
+                if (testNames.contains(this.getTestMethodName(method)))
+                    actualFingerprints.add(this.getExpectedTestFingerprint(method, testType));
+            }
+            for (Map.Entry<String, PsiMethod> entry : existingTests.entrySet()) {
+                PsiMethod testMethod = entry.getValue();
+                if (testNames.contains(testMethod.getName()) && !actualFingerprints.contains(entry.getKey()))
+                    outdatedTests.add(testMethod);
+            }
+        }
+        //endregion
+        return new TestClassPatch(testClass, methodTexts, outdatedTests, sourceFileUrl, indexEntries);
+    }
+
+    private Map<String, PsiMethod> getExistingTests(PsiClass testClass) {
+        Map<String, PsiMethod> existingTests = new HashMap<>();
+        for (PsiMethod testMethod : testClass.getMethods())
+            existingTests.put(this.getTestFingerprint(testMethod), testMethod);
+        return existingTests;
+    }
+
+    /**
+     * Индекс сгенерированных тестов проекта, null если класс не принадлежит проекту
+     */
+    private GeneratedTestsIndex getIndex(PsiClass psiClass) {
+        Project project = psiClass.getProject();
+        return project != null ? GeneratedTestsIndex.getInstance(project) : null;
+    }
+    //endregion
+
+    /**
+     * Записывает подготовленный результат генерации в проект. Должен вызываться на EDT.
+     *
+     * @param project Проект, в котором создается файл
+     * @param result  Подготовленный результат генерации, null - записывать нечего (все методы покрыты)
+     */
+    public void write(Project project, GenerationResult result) {
+        if (result == null) return;
+        this.write(project, List.of(result));
+    }
+
+    /**
+     * Записывает подготовленные результаты генерации порциями действий записи, обновляет
+     * индекс сгенерированных тестов и форматирует записанные файлы. По окончании записи сводка метрик
+     * генерации пишется в журнал IDE. Должен вызываться на EDT.
+     *
+     * @param project Проект, в котором создаются файлы
+     * @param results Подготовленные результаты генерации
+     * @see TestsBatchWriter
+     */
+    public void write(Project project, List<? extends GenerationResult> results) {
+        TestsBatchWriter writer = new TestsBatchWriter(project);
+        writer.setMetrics(this.metrics);
+        writer.write(results);
+    }
+
+    /**
+     * Подготавливает и записывает тесты элемента. Если по отчету о покрытии все методы класса покрыты,
+     * файл не создается.
+     */
+    public void generate(Project project, PsiElement element, PsiDirectory directory, TestType testType) {
+        GenerationResult result = this.prepare(element, directory, testType);
+        if (result == null) return;
+        this.write(project, result);
     }
 
     //endregion
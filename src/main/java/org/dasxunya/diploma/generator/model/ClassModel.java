@@ -0,0 +1,21 @@
+package org.dasxunya.diploma.generator.model;
+
+import java.util.List;
+
+/**
+ * Неизменяемый снимок тестируемого класса
+ *
+ * @param name        Имя класса
+ * @param packageName Имя пакета класса
+ * @param constructor Самый дешевый доступный конструктор класса, null - конструкторы не объявлены
+ * @param methods     Методы класса в порядке объявления, при отборе по покрытию - по убыванию непокрытых инструкций
+ * @param concurrent    Тесты класса можно выполнять параллельно: класс не содержит разделяемого изменяемого состояния
+ * @param sharedFixture Объект класса создается один раз на тестирующий класс в {@code @BeforeAll}
+ */
+public record ClassModel(String name, String packageName, MethodModel constructor, List<MethodModel> methods,
+                         boolean concurrent, boolean sharedFixture) {
+
+    public ClassModel {
+        methods = List.copyOf(methods);
+    }
+}
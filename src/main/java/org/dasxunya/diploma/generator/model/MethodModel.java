@@ -0,0 +1,25 @@
+package org.dasxunya.diploma.generator.model;
+
+import org.dasxunya.diploma.generator.TypeCategory;
+
+import java.util.List;
+
+/**
+ * Неизменяемый снимок тестируемого метода, достаточный для генерации тестов.
+ * Извлекается из PSI один раз под действием чтения, после чего генерация
+ * может выполняться в любом потоке без обращения к PSI.
+ *
+ * @param name           Имя метода (для конструктора - имя класса)
+ * @param returnType     Канонический текст возвращаемого типа, {@code void} для конструктора
+ * @param returnCategory Категория возвращаемого типа
+ * @param parameters     Параметры метода в порядке объявления
+ * @param overloadIndex  Номер метода среди одноименных методов класса в порядке объявления: 0, 1, 2...,
+ *                       0 - метод извлечен без класса
+ */
+public record MethodModel(String name, String returnType, TypeCategory returnCategory, List<ParameterModel> parameters,
+                          int overloadIndex) {
+
+    public MethodModel {
+        parameters = List.copyOf(parameters);
+    }
+}
@@ -0,0 +1,15 @@
+package org.dasxunya.diploma.generator.model;
+
+import org.dasxunya.diploma.generator.ExampleData;
+import org.dasxunya.diploma.generator.TypeCategory;
+
+/**
+ * Параметр тестируемого метода
+ *
+ * @param name     Имя параметра
+ * @param type     Отображаемый текст типа, например {@code String}
+ * @param category Категория типа
+ * @param example  Пример значения параметра
+ */
+public record ParameterModel(String name, String type, TypeCategory category, ExampleData example) {
+}
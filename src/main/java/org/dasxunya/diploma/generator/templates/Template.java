@@ -0,0 +1,197 @@
+package org.dasxunya.diploma.generator.templates;
+
+import org.dasxunya.diploma.generator.CodeWriter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Скомпилированный шаблон кода: текст разбирается один раз в список инструкций,
+ * которые при отрисовке записывают литералы и значения области видимости в писатель кода.
+ * <p>
+ * Синтаксис:
+ * <ul>
+ *     <li>{@code ${name}} - значение переменной;</li>
+ *     <li>{@code ${#name}...${/name}} - блок, повторяемый {@link TemplateScope#getBlockSize(String)} раз;</li>
+ *     <li>{@code ${#name|, }...${/name}} - блок с разделителем между повторениями,
+ *     в разделителе поддерживаются {@code \n} и {@code \t}.</li>
+ * </ul>
+ * Переменная, занимающая отдельную строку, записывается с отступом этой строки,
+ * а перевод строки после нее отбрасывается: значение само завершает свои строки.
+ * Последний перевод строки текста шаблона отбрасывается.
+ */
+public final class Template {
+
+    //region Поля
+    private final String name;
+    private final Instruction[] instructions;
+    //endregion
+
+    //region Конструкторы
+    private Template(String name, Instruction[] instructions) {
+        this.name = name;
+        this.instructions = instructions;
+    }
+    //endregion
+
+    //region Сеттеры/Геттеры
+    public String getName() {
+        return name;
+    }
+    //endregion
+
+    //region Методы
+    public void render(CodeWriter writer, TemplateScope scope) {
+        render(this.instructions, writer, scope);
+    }
+
+    private static void render(Instruction[] instructions, CodeWriter writer, TemplateScope scope) {
+        for (Instruction instruction : instructions)
+            instruction.render(writer, scope);
+    }
+
+    /**
+     * Разбирает текст шаблона в список инструкций
+     *
+     * @param name Имя шаблона для сообщений об ошибках
+     * @param text Текст шаблона
+     * @return Скомпилированный шаблон
+     * @throws IllegalArgumentException Текст шаблона содержит синтаксическую ошибку
+     */
+    public static Template compile(String name, String text) throws IllegalArgumentException {
+        text = text.replace("\r\n", "\n");
+        if (text.endsWith("\n")) text = text.substring(0, text.length() - 1);
+
+        Deque<Frame> frames = new ArrayDeque<>();
+        frames.push(new Frame(null, null));
+        StringBuilder literal = new StringBuilder();
+        int position = 0;
+        while (position < text.length()) {
+            int open = text.indexOf("${", position);
+            if (open < 0) {
+                literal.append(text, position, text.length());
+                break;
+            }
+            int close = text.indexOf('}', open + 2);
+            if (close < 0)
+                throw new IllegalArgumentException(String.format("Шаблон %s: незакрытая переменная в позиции %d", name, open));
+            literal.append(text, position, open);
+            position = close + 1;
+            String tag = text.substring(open + 2, close);
+
+            if (tag.startsWith("#")) {
+                //region Начало блока
+                frames.peek().flush(literal);
+                int separatorIndex = tag.indexOf('|');
+                String blockName = separatorIndex < 0 ? tag.substring(1) : tag.substring(1, separatorIndex);
+                String separator = separatorIndex < 0 ? null : unescape(tag.substring(separatorIndex + 1));
+                frames.push(new Frame(blockName.trim(), separator));
+                //endregion
+            } else if (tag.startsWith("/")) {
+                //region Конец блока
+                Frame frame = frames.size() > 1 ? frames.pop() : frames.peek();
+                if (frame.blockName == null || !frame.blockName.equals(tag.substring(1).trim()))
+                    throw new IllegalArgumentException(String.format("Шаблон %s: неожиданное закрытие блока %s", name, tag));
+                frame.flush(literal);
+                frames.peek().instructions.add(new Block(frame.blockName, frame.separator, frame.instructions.toArray(new Instruction[0])));
+                //endregion
+            } else {
+                //region Переменная
+                int lineStart = text.lastIndexOf('\n', open - 1) + 1;
+                boolean isStandalone = isBlank(text, lineStart, open)
+                                       && (position == text.length() || text.charAt(position) == '\n')
+                                       && literal.length() >= open - lineStart;
+                if (isStandalone) {
+                    String indent = text.substring(lineStart, open);
+                    literal.setLength(literal.length() - indent.length());
+                    frames.peek().flush(literal);
+                    frames.peek().instructions.add(new IndentedValue(indent, tag.trim()));
+                    if (position < text.length()) position++;
+                } else {
+                    frames.peek().flush(literal);
+                    frames.peek().instructions.add(new Value(tag.trim()));
+                }
+                //endregion
+            }
+        }
+        if (frames.size() > 1)
+            throw new IllegalArgumentException(String.format("Шаблон %s: блок %s не закрыт", name, frames.peek().blockName));
+        frames.peek().flush(literal);
+        return new Template(name, frames.peek().instructions.toArray(new Instruction[0]));
+    }
+
+    private static boolean isBlank(String text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c != ' ' && c != '\t') return false;
+        }
+        return true;
+    }
+
+    private static String unescape(String text) {
+        return text.replace("\\n", "\n").replace("\\t", "\t");
+    }
+    //endregion
+
+    //region Инструкции
+    private interface Instruction {
+        void render(CodeWriter writer, TemplateScope scope);
+    }
+
+    private record Literal(String text) implements Instruction {
+        @Override
+        public void render(CodeWriter writer, TemplateScope scope) {
+            writer.print(this.text);
+        }
+    }
+
+    private record Value(String name) implements Instruction {
+        @Override
+        public void render(CodeWriter writer, TemplateScope scope) {
+            scope.writeValue(writer, this.name);
+        }
+    }
+
+    private record IndentedValue(String indent, String name) implements Instruction {
+        @Override
+        public void render(CodeWriter writer, TemplateScope scope) {
+            writer.indent(this.indent);
+            scope.writeValue(writer, this.name);
+            writer.unindent();
+        }
+    }
+
+    private record Block(String name, String separator, Instruction[] body) implements Instruction {
+        @Override
+        public void render(CodeWriter writer, TemplateScope scope) {
+            int size = scope.getBlockSize(this.name);
+            for (int i = 0; i < size; i++) {
+                if (i > 0 && this.separator != null) writer.print(this.separator);
+                Template.render(this.body, writer, scope.getBlockScope(this.name, i));
+            }
+        }
+    }
+
+    /**
+     * Уровень вложенности блоков при разборе
+     */
+    private static final class Frame {
+        private final String blockName;
+        private final String separator;
+        private final List<Instruction> instructions = new ArrayList<>();
+
+        private Frame(String blockName, String separator) {
+            this.blockName = blockName;
+            this.separator = separator;
+        }
+
+        private void flush(StringBuilder literal) {
+            if (literal.length() == 0) return;
+            this.instructions.add(new Literal(literal.toString()));
+            literal.setLength(0);
+        }
+    }
+    //endregion
+}
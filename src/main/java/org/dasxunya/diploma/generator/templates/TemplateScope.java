@@ -0,0 +1,30 @@
+package org.dasxunya.diploma.generator.templates;
+
+import org.dasxunya.diploma.generator.CodeWriter;
+
+/**
+ * Источник значений переменных и блоков при отрисовке шаблона.
+ * Значения записываются напрямую в писатель кода, без промежуточных строк.
+ */
+@FunctionalInterface
+public interface TemplateScope {
+
+    /**
+     * Записывает значение переменной {@code ${name}}
+     */
+    void writeValue(CodeWriter writer, String name);
+
+    /**
+     * Количество повторений блока {@code ${#name}...${/name}}, 0 - блок пропускается
+     */
+    default int getBlockSize(String name) {
+        return 0;
+    }
+
+    /**
+     * Область видимости для index-го повторения блока
+     */
+    default TemplateScope getBlockScope(String name, int index) {
+        return this;
+    }
+}
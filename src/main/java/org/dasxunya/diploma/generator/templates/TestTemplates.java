@@ -0,0 +1,115 @@
+package org.dasxunya.diploma.generator.templates;
+
+import com.intellij.openapi.project.Project;
+import org.dasxunya.diploma.constants.Constants;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Набор скомпилированных шаблонов тестов.
+ * Шаблоны по умолчанию загружаются из ресурсов плагина один раз,
+ * шаблоны проекта из директории {@code .testgen/templates} переопределяют их по имени файла.
+ */
+public final class TestTemplates {
+
+    //region Поля
+    private static final String[] NAMES = {
+            Constants.Strings.Templates.testClass,
+            Constants.Strings.Templates.classHeader,
+            Constants.Strings.Templates.unitTest,
+            Constants.Strings.Templates.parameterizedTest,
+            Constants.Strings.Templates.parameterizedMethodSourceTest,
+            Constants.Strings.Templates.parameterizedCsvFileTest,
+            Constants.Strings.Templates.assertBoolean,
+            Constants.Strings.Templates.assertIntegral,
+            Constants.Strings.Templates.assertFloating,
+            Constants.Strings.Templates.assertVoid,
+            Constants.Strings.Templates.assertObject,
+            Constants.Strings.Templates.hierarchyBaseTestClass,
+            Constants.Strings.Templates.hierarchySubclassTestClass,
+            Constants.Strings.Templates.benchmarkClass,
+            Constants.Strings.Templates.benchmark,
+            Constants.Strings.Templates.performanceGuard,
+            Constants.Strings.Templates.performanceSupport
+    };
+    private static volatile TestTemplates defaultTemplates;
+    private final Map<String, Template> templates;
+    //endregion
+
+    //region Конструкторы
+    private TestTemplates(Map<String, Template> templates) {
+        this.templates = templates;
+    }
+    //endregion
+
+    //region Методы
+    public Template get(String name) {
+        Template template = this.templates.get(name);
+        if (template == null)
+            throw new IllegalArgumentException("Неизвестный шаблон: " + name);
+        return template;
+    }
+
+    /**
+     * Шаблоны по умолчанию из ресурсов плагина
+     */
+    public static TestTemplates getDefault() {
+        TestTemplates templates = defaultTemplates;
+        if (templates == null) {
+            synchronized (TestTemplates.class) {
+                templates = defaultTemplates;
+                if (templates == null) {
+                    Map<String, Template> compiled = new HashMap<>();
+                    for (String name : NAMES)
+                        compiled.put(name, Template.compile(name, readResource(name)));
+                    templates = defaultTemplates = new TestTemplates(compiled);
+                }
+            }
+        }
+        return templates;
+    }
+
+    /**
+     * Шаблоны проекта: файлы {@code <name>.tmpl} из директории {@code .testgen/templates}
+     * в корне проекта, для отсутствующих файлов используются шаблоны по умолчанию
+     */
+    public static TestTemplates forProject(Project project) {
+        String basePath = project.getBasePath();
+        if (basePath == null) return getDefault();
+        return load(Path.of(basePath, Constants.Strings.Templates.projectDirectory));
+    }
+
+    public static TestTemplates load(Path directory) {
+        if (!Files.isDirectory(directory)) return getDefault();
+        Map<String, Template> compiled = new HashMap<>(getDefault().templates);
+        for (String name : NAMES) {
+            Path file = directory.resolve(name + "." + Constants.Strings.Templates.extension);
+            if (!Files.isRegularFile(file)) continue;
+            try {
+                compiled.put(name, Template.compile(name, Files.readString(file, StandardCharsets.UTF_8)));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Не удалось прочитать шаблон " + file, e);
+            }
+        }
+        return new TestTemplates(compiled);
+    }
+
+    private static String readResource(String name) {
+        String path = "/templates/" + name + "." + Constants.Strings.Templates.extension;
+        try (InputStream stream = TestTemplates.class.getResourceAsStream(path)) {
+            if (stream == null)
+                throw new IllegalStateException("Не найден шаблон по умолчанию: " + path);
+            return new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось прочитать шаблон " + path, e);
+        }
+    }
+    //endregion
+}
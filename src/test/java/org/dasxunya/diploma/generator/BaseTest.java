@@ -63,6 +63,11 @@ public class BaseTest {
     public PsiDirectory mockPsiDirectory;
     @Mock
     public PsiPackage mockPsiPackage;
+    /**
+     * Изменяемое поле экземпляра Car: объект создается перед каждым тестом
+     */
+    @Mock
+    public PsiField mockPsiField;
     //endregion
 
     //region Макеты для методов
@@ -504,6 +509,7 @@ public class BaseTest {
         when(mockPsiClass.getConstructors()).thenReturn(new PsiMethod[]{
                 this.mockConstructor
         });
+        when(mockPsiClass.getFields()).thenReturn(new PsiField[]{this.mockPsiField});
         //endregion
     }
 
@@ -0,0 +1,26 @@
+package org.dasxunya.diploma.generator;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class CodeWriterTests {
+
+    @Test
+    void testIndentAppliedToEveryNonEmptyLine() {
+        StringBuilder sb = new StringBuilder();
+        CodeWriter writer = new CodeWriter(sb);
+        writer.println("void setUp() {");
+        writer.indent().print("first;\n\nsecond").print(';').newLine().unindent();
+        writer.println("}");
+        assertEquals("void setUp() {\n\tfirst;\n\n\tsecond;\n}\n", sb.toString());
+        assertEquals(sb.length(), writer.getLength());
+    }
+
+    @Test
+    void testPrintRange() {
+        StringBuilder sb = new StringBuilder();
+        new CodeWriter(sb, "    ").indent().print("xxmethodyy", 2, 8);
+        assertEquals("    method", sb.toString());
+    }
+}
@@ -0,0 +1,106 @@
+package org.dasxunya.diploma.generator;
+
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiMethod;
+import com.intellij.psi.PsiParameter;
+import com.intellij.psi.PsiParameterList;
+import com.intellij.psi.PsiType;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class CoverageReportTests {
+
+    /**
+     * Фрагмент отчета JaCoCo: конструктор покрыт, drive покрыт на 20%, map на 90%, вложенный класс не покрыт
+     */
+    private static final String REPORT = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+                                         + "<!DOCTYPE report PUBLIC \"-//JACOCO//DTD Report 1.1//EN\" \"report.dtd\">"
+                                         + "<report name=\"cars\"><package name=\"org/example\">"
+                                         + "<class name=\"org/example/Car\" sourcefilename=\"Car.java\">"
+                                         + method("&lt;init&gt;", "(Ljava/lang/String;I)V", 0, 10)
+                                         + method("drive", "([DLjava/util/List;)Z", 8, 2)
+                                         + method("map", "(Ljava/lang/Object;)V", 1, 9)
+                                         + "<counter type=\"INSTRUCTION\" missed=\"9\" covered=\"21\"/></class>"
+                                         + "<class name=\"org/example/Car$Engine\" sourcefilename=\"Car.java\">"
+                                         + method("start", "()V", 4, 0)
+                                         + "</class></package></report>";
+
+    private static String method(String name, String descriptor, int missed, int covered) {
+        return String.format("<method name=\"%s\" desc=\"%s\" line=\"1\"><counter type=\"INSTRUCTION\" missed=\"%d\" covered=\"%d\"/>"
+                             + "<counter type=\"LINE\" missed=\"1\" covered=\"1\"/></method>", name, descriptor, missed, covered);
+    }
+
+    private CoverageReport parse() throws IOException {
+        return CoverageReport.parse(new ByteArrayInputStream(REPORT.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private PsiMethod createMethod(String name, String... parameterTypes) {
+        PsiParameter[] parameters = new PsiParameter[parameterTypes.length];
+        for (int i = 0; i < parameterTypes.length; i++) {
+            PsiType type = mock(PsiType.class);
+            when(type.getPresentableText()).thenReturn(parameterTypes[i]);
+            parameters[i] = mock(PsiParameter.class);
+            when(parameters[i].getType()).thenReturn(type);
+        }
+        PsiParameterList parameterList = mock(PsiParameterList.class);
+        when(parameterList.getParameters()).thenReturn(parameters);
+        PsiMethod method = mock(PsiMethod.class);
+        when(method.getName()).thenReturn(name);
+        when(method.getParameterList()).thenReturn(parameterList);
+        return method;
+    }
+
+    @Test
+    void testParse() throws IOException {
+        CoverageReport report = this.parse();
+        assertEquals(2, report.size());
+        // Счетчик класса не складывается со счетчиками методов
+        assertEquals(9, report.getMissedInstructions("org.example.Car"));
+        assertEquals(4, report.getMissedInstructions("org.example.Car.Engine"));
+        assertEquals(-1, report.getMissedInstructions("org.example.Bus"));
+
+        assertEquals(1.0, report.find("org.example.Car", "<init>", "String,int").getRatio());
+        assertEquals(8, report.find("org.example.Car", "drive", "double[],List").missed());
+        // Параметр-переменная типа стирается до Object и сопоставляется по числу параметров
+        assertEquals(9, report.find("org.example.Car", "map", "T").covered());
+        assertNull(report.find("org.example.Car", "drive", "int"));
+    }
+
+    @Test
+    void testSelectUncovered() throws IOException {
+        PsiClass psiClass = mock(PsiClass.class);
+        when(psiClass.getQualifiedName()).thenReturn("org.example.Car");
+        PsiMethod constructor = this.createMethod("Car", "String", "int");
+        when(constructor.isConstructor()).thenReturn(true);
+        PsiMethod map = this.createMethod("map", "T");
+        PsiMethod drive = this.createMethod("drive", "double[]", "List<String>");
+        PsiMethod park = this.createMethod("park");
+        PsiMethod[] methods = {constructor, map, park, drive};
+
+        CoverageReport report = this.parse();
+        // Покрытые методы пропускаются, методы без покрытия в отчете идут последними
+        assertArrayEquals(new PsiMethod[]{drive, park}, report.selectUncovered(psiClass, methods, 0.8));
+        assertArrayEquals(new PsiMethod[]{drive, map, park}, report.selectUncovered(psiClass, methods, 0.95));
+        // Для класса, которого нет в отчете, тесты генерируются для всех методов
+        when(psiClass.getQualifiedName()).thenReturn("org.example.Bus");
+        assertSame(methods, report.selectUncovered(psiClass, methods, 0.8));
+    }
+
+    @Test
+    void testInvalidReports() {
+        assertThrows(IllegalArgumentException.class, () -> CoverageReport.load(Path.of("build", "jacoco", "test.exec")));
+        assertThrows(IOException.class, () -> CoverageReport.parse(new ByteArrayInputStream("<report><class".getBytes(StandardCharsets.UTF_8))));
+    }
+}
@@ -0,0 +1,111 @@
+package org.dasxunya.diploma.generator;
+
+import com.intellij.psi.PsiArrayType;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiClassType;
+import com.intellij.psi.PsiEnumConstant;
+import com.intellij.psi.PsiField;
+import com.intellij.psi.PsiRecordComponent;
+import com.intellij.psi.PsiType;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ExampleDataResolverTests {
+
+    private final ExampleDataResolver resolver = new ExampleDataResolver(new TypeCategoryCache());
+
+    private PsiClassType createClassType(String canonicalText, PsiClass psiClass, PsiType... typeArguments) {
+        PsiClassType classType = mock(PsiClassType.class);
+        when(classType.getCanonicalText()).thenReturn(canonicalText);
+        when(classType.getPresentableText()).thenReturn(canonicalText.substring(canonicalText.lastIndexOf('.') + 1));
+        when(classType.resolve()).thenReturn(psiClass);
+        when(classType.getParameters()).thenReturn(typeArguments);
+        return classType;
+    }
+
+    private PsiClassType createRecordType(String qualifiedName, PsiType... componentTypes) {
+        PsiRecordComponent[] components = new PsiRecordComponent[componentTypes.length];
+        for (int i = 0; i < componentTypes.length; i++) {
+            components[i] = mock(PsiRecordComponent.class);
+            when(components[i].getType()).thenReturn(componentTypes[i]);
+        }
+        PsiClass psiClass = mock(PsiClass.class);
+        when(psiClass.getQualifiedName()).thenReturn(qualifiedName);
+        when(psiClass.isRecord()).thenReturn(true);
+        when(psiClass.getRecordComponents()).thenReturn(components);
+        return this.createClassType(qualifiedName, psiClass);
+    }
+
+    @SuppressWarnings("deprecation")
+    @Test
+    void testResolve() {
+        assertEquals(new ExampleData("0", "0L"), this.resolver.resolve(this.createClassType("java.lang.Long", null)));
+        assertEquals(new ExampleData("0", "0"), this.resolver.resolve(PsiType.INT));
+        assertEquals(ExampleData.NULL, this.resolver.resolve(PsiType.VOID));
+
+        //region Перечисление
+        PsiEnumConstant constant = mock(PsiEnumConstant.class);
+        when(constant.getName()).thenReturn("RED");
+        PsiClass color = mock(PsiClass.class);
+        when(color.getQualifiedName()).thenReturn("org.example.Color");
+        when(color.isEnum()).thenReturn(true);
+        when(color.getFields()).thenReturn(new PsiField[]{constant});
+        assertEquals(new ExampleData("RED", "org.example.Color.RED"),
+                this.resolver.resolve(this.createClassType("org.example.Color", color)));
+        //endregion
+
+        PsiType string = this.createClassType("java.lang.String", null);
+        when(string.getPresentableText()).thenReturn("String");
+        ExampleData list = this.resolver.resolve(this.createClassType("java.util.List<java.lang.String>", null, string));
+        assertEquals("java.util.List.of(\"exampleString\")", list.expression());
+        assertFalse(list.isCsvConvertible());
+        assertEquals("", list.getCsvValue());
+
+        PsiArrayType array = mock(PsiArrayType.class);
+        when(array.getCanonicalText()).thenReturn("int[]");
+        when(array.getPresentableText()).thenReturn("int[]");
+        when(array.getComponentType()).thenReturn(PsiType.INT);
+        assertEquals("new int[]{0}", this.resolver.resolve(array).expression());
+    }
+
+    @SuppressWarnings("deprecation")
+    @Test
+    void testResolveNested() {
+        // Point(int) -> Box(Point) -> Crate(Box) -> Pallet(Crate): на глубине MAX_DEPTH подставляется null
+        PsiClassType point = this.createRecordType("org.example.Point", PsiType.INT);
+        PsiClassType box = this.createRecordType("org.example.Box", point);
+        PsiClassType crate = this.createRecordType("org.example.Crate", box);
+        PsiClassType pallet = this.createRecordType("org.example.Pallet", crate);
+        assertEquals("new org.example.Pallet(new org.example.Crate(new org.example.Box(null)))",
+                this.resolver.resolve(pallet).expression());
+        // Вложенные значения кэшируются по глубине: Crate верхнего уровня строится заново на полную глубину
+        assertEquals("new org.example.Crate(new org.example.Box(new org.example.Point(0)))",
+                this.resolver.resolve(crate).expression());
+
+        // Повторный запрос берется из кэша без обращения к PSI
+        ExampleData cached = this.resolver.resolve(crate);
+        assertSame(cached, this.resolver.resolve(crate));
+        verify(crate, times(2)).resolve();
+    }
+
+    @SuppressWarnings("deprecation")
+    @Test
+    void testResolveNestedAfterTopLevel() {
+        PsiClassType point = this.createRecordType("org.example.Point", PsiType.INT);
+        PsiClassType box = this.createRecordType("org.example.Box", point);
+        PsiClassType crate = this.createRecordType("org.example.Crate", box);
+        PsiClassType pallet = this.createRecordType("org.example.Pallet", crate);
+        // Закэшированный на верхнем уровне Crate не подставляется во вложенный Pallet целиком
+        assertEquals("new org.example.Crate(new org.example.Box(new org.example.Point(0)))",
+                this.resolver.resolve(crate).expression());
+        assertEquals("new org.example.Pallet(new org.example.Crate(new org.example.Box(null)))",
+                this.resolver.resolve(pallet).expression());
+    }
+}
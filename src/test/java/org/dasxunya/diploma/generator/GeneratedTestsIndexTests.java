@@ -0,0 +1,40 @@
+package org.dasxunya.diploma.generator;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class GeneratedTestsIndexTests {
+
+    private static final String carUrl = "file:///project/src/org/example/Car.java";
+    private static final String engineUrl = "file:///project/src/org/example/engine/Engine.java";
+
+    @Test
+    void testStateRoundTrip() {
+        GeneratedTestsIndex index = new GeneratedTestsIndex();
+        index.put(carUrl, Map.of("drive(int,java.lang.String):PARAMETERIZED", "CarTests.testDrive"));
+        index.put(engineUrl, Map.of("start():UNIT", "EngineTests.testStart"));
+
+        GeneratedTestsIndex restored = new GeneratedTestsIndex();
+        restored.loadState(index.getState());
+        assertEquals("CarTests.testDrive", restored.getTestMethod(carUrl, "drive(int,java.lang.String):PARAMETERIZED"));
+        assertEquals("EngineTests.testStart", restored.getTestMethod(engineUrl, "start():UNIT"));
+    }
+
+    @Test
+    void testInvalidate() {
+        GeneratedTestsIndex index = new GeneratedTestsIndex();
+        index.put(carUrl, Map.of("drive(int):UNIT", "CarTests.testDrive"));
+        index.put(engineUrl, Map.of("start():UNIT", "EngineTests.testStart"));
+
+        index.invalidate(carUrl);
+        assertNull(index.getTestMethod(carUrl, "drive(int):UNIT"));
+        assertEquals("EngineTests.testStart", index.getTestMethod(engineUrl, "start():UNIT"));
+
+        index.invalidateDirectory("file:///project/src/org/example/engine");
+        assertNull(index.getTestMethod(engineUrl, "start():UNIT"));
+    }
+}
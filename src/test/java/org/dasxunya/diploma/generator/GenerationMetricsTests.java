@@ -0,0 +1,71 @@
+package org.dasxunya.diploma.generator;
+
+import com.intellij.psi.PsiType;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class GenerationMetricsTests {
+
+    private final GenerationMetrics metrics = new GenerationMetrics();
+
+    @Test
+    void testPhasesAndCounters() {
+        this.metrics.record(GenerationMetrics.Phase.RENDERING, 1_500_000);
+        this.metrics.record(GenerationMetrics.Phase.RENDERING, 500_000);
+        this.metrics.increment(GenerationMetrics.Counter.CLASSES);
+        this.metrics.add(GenerationMetrics.Counter.CHARACTERS, 120);
+        assertEquals(2_000_000, this.metrics.getNanos(GenerationMetrics.Phase.RENDERING));
+        assertEquals(2, this.metrics.getCalls(GenerationMetrics.Phase.RENDERING));
+        assertEquals(0, this.metrics.getCalls(GenerationMetrics.Phase.FILE_WRITE));
+        assertEquals(1, this.metrics.get(GenerationMetrics.Counter.CLASSES));
+        assertEquals(120, this.metrics.get(GenerationMetrics.Counter.CHARACTERS));
+
+        String summary = this.metrics.getSummary();
+        assertTrue(summary.contains("классов 1"), summary);
+        assertTrue(summary.contains("символов 120"), summary);
+        assertTrue(summary.contains(String.format("Рендеринг: %.1f мс (2)", 2.0)), summary);
+
+        this.metrics.reset();
+        assertEquals(0, this.metrics.getNanos(GenerationMetrics.Phase.RENDERING));
+        assertEquals(0, this.metrics.get(GenerationMetrics.Counter.CLASSES));
+    }
+
+    @Test
+    void testTypeCacheHits() {
+        TypeCategoryCache cache = new TypeCategoryCache(this.metrics);
+        PsiType type = mock(PsiType.class);
+        when(type.getCanonicalText()).thenReturn("int");
+        when(type.getPresentableText()).thenReturn("int");
+        cache.get(type);
+        cache.get(type);
+        cache.get(type);
+        assertEquals(1, this.metrics.get(GenerationMetrics.Counter.TYPE_CACHE_MISSES));
+        assertEquals(2, this.metrics.get(GenerationMetrics.Counter.TYPE_CACHE_HITS));
+    }
+
+    @Test
+    void testMeasurement() {
+        GenerationMetrics.Measurement measurement = this.metrics.start(GenerationMetrics.Phase.FILE_WRITE);
+        long nanos = this.metrics.stop(measurement);
+        assertEquals(nanos, this.metrics.getNanos(GenerationMetrics.Phase.FILE_WRITE));
+        assertEquals(1, this.metrics.getCalls(GenerationMetrics.Phase.FILE_WRITE));
+    }
+
+    @Test
+    void testExampleResolutionCountsTypeOnce() {
+        TypeCategoryCache cache = new TypeCategoryCache(this.metrics);
+        ExampleDataResolver resolver = new ExampleDataResolver(cache, this.metrics);
+        PsiType type = mock(PsiType.class);
+        when(type.getCanonicalText()).thenReturn("int");
+        when(type.getPresentableText()).thenReturn("int");
+        // Категория, полученная при извлечении модели, не запрашивается у кэша повторно
+        resolver.resolve(type, cache.resolve(type));
+        assertEquals(1, this.metrics.get(GenerationMetrics.Counter.TYPE_CACHE_MISSES));
+        assertEquals(0, this.metrics.get(GenerationMetrics.Counter.TYPE_CACHE_HITS));
+        assertEquals(1, this.metrics.get(GenerationMetrics.Counter.EXAMPLE_CACHE_MISSES));
+    }
+}
@@ -0,0 +1,26 @@
+package org.dasxunya.diploma.generator;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class JunitPlatformPropertiesTests {
+
+    @Test
+    void testMergeIntoEmptyFile() {
+        String content = JunitPlatformProperties.merge("");
+        assertTrue(content.startsWith("junit.jupiter.execution.parallel.enabled=true\n"), content);
+        assertTrue(content.contains("junit.jupiter.execution.parallel.mode.default=same_thread\n"), content);
+        assertEquals(content, JunitPlatformProperties.merge(content));
+    }
+
+    @Test
+    void testMergeKeepsExistingSettings() {
+        String existing = "# Настройки проекта\njunit.jupiter.execution.parallel.mode.default = concurrent";
+        String content = JunitPlatformProperties.merge(existing);
+        // Заданное значение и комментарий сохраняются, недостающие настройки дописываются с новой строки
+        assertTrue(content.startsWith(existing + "\njunit.jupiter.execution.parallel.enabled=true\n"), content);
+        assertEquals(1, content.split("parallel.mode.default", -1).length - 1);
+    }
+}
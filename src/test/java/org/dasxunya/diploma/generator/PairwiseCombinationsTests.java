@@ -0,0 +1,55 @@
+package org.dasxunya.diploma.generator;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PairwiseCombinationsTests {
+
+    private void assertAllPairsCovered(int[] sizes, List<int[]> rows) {
+        for (int i = 0; i < sizes.length; i++) {
+            for (int j = i + 1; j < sizes.length; j++) {
+                for (int a = 0; a < sizes[i]; a++) {
+                    for (int b = 0; b < sizes[j]; b++) {
+                        boolean covered = false;
+                        for (int[] row : rows) {
+                            if (row[i] == a && row[j] == b) {
+                                covered = true;
+                                break;
+                            }
+                        }
+                        assertTrue(covered, "Пара не покрыта: p" + i + "=" + a + ", p" + j + "=" + b);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void testAllPairsCovered() {
+        int[] sizes = {3, 5, 2, 5, 4, 5, 5, 5, 5};
+        List<int[]> rows = PairwiseCombinations.generate(sizes);
+        assertAllPairsCovered(sizes, rows);
+        // Полный перебор - 3 * 2 * 4 * 5^6 = 375000 строк
+        assertTrue(rows.size() < 50, "Строк: " + rows.size());
+    }
+
+    @Test
+    void testFirstRowIsExample() {
+        List<int[]> rows = PairwiseCombinations.generate(new int[]{2, 4, 3});
+        assertArrayEquals(new int[]{0, 0, 0}, rows.get(0));
+    }
+
+    @Test
+    void testSmallInputs() {
+        assertEquals(0, PairwiseCombinations.generate(new int[0]).size());
+        assertEquals(3, PairwiseCombinations.generate(new int[]{3}).size());
+        List<int[]> rows = PairwiseCombinations.generate(new int[]{1, 1, 1});
+        assertEquals(1, rows.size());
+        assertArrayEquals(new int[]{0, 0, 0}, rows.get(0));
+    }
+}
@@ -1,9 +1,37 @@
 package org.dasxunya.diploma.generator;
 
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiClassType;
+import com.intellij.psi.PsiField;
+import com.intellij.psi.PsiMethod;
+import com.intellij.psi.PsiModifier;
+import com.intellij.psi.PsiParameter;
+import com.intellij.psi.PsiSubstitutor;
+import com.intellij.psi.PsiType;
+import com.intellij.psi.util.MethodSignature;
 import org.dasxunya.diploma.constants.Constants;
 import org.dasxunya.diploma.constants.TestType;
+import org.dasxunya.diploma.generator.model.ClassModel;
+import org.dasxunya.diploma.generator.model.MethodModel;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
 public class PsiClassGeneratorTests extends BaseTest {
 
     @Test
@@ -20,5 +48,222 @@ public class PsiClassGeneratorTests extends BaseTest {
         this.deleteFile(this.actualFolderPath, fileName, Constants.Strings.Extensions.txt);
     }
 
+    @Test
+    void testGenerateFromModel() {
+        // Генерация по модели, извлеченной заранее, совпадает с генерацией по PSI
+        ClassModel classModel = this.generator.createModel(this.mockPsiClass, true);
+        assertEquals(this.mockPsiClass.getMethods().length, classModel.methods().size());
+        assertEquals(this.generator.generate(this.mockPsiClass, TestType.PARAMETERIZED),
+                this.generator.generate(this.mockPsiClass.getName(), classModel, null, TestType.PARAMETERIZED));
+    }
+
+    @SuppressWarnings({"UnstableApiUsage", "deprecation"})
+    @Test
+    void testPrepareUpdate() {
+        //region Существующий тестирующий класс
+        // Тест voidMethod актуален, у теста returnMethod устарела сигнатура, пользовательский тест не трогается
+        PsiMethod upToDateTest = createPsiMethod(PsiType.VOID, "testVoidMethod", this.mockVoidMethod.getParameterList().getParameters());
+        PsiMethod obsoleteTest = createPsiMethod(PsiType.VOID, "testReturnMethod", new PsiParameter[]{this.mockPsiParameterInt});
+        PsiMethod userTest = createPsiMethod(PsiType.VOID, "testSomethingElse", null);
+        PsiClass testClass = mock(PsiClass.class);
+        when(testClass.getMethods()).thenReturn(new PsiMethod[]{upToDateTest, obsoleteTest, userTest});
+        //endregion
+
+        TestClassPatch patch = this.generator.prepareUpdate(testClass, this.mockPsiClass, null, TestType.PARAMETERIZED);
+        // Тесты генерируются только для конструктора, noParamMethod и returnMethod
+        assertEquals(3, patch.methodTexts().size());
+        assertTrue(patch.methodTexts().get(0).contains("public void testCar("));
+        assertTrue(patch.methodTexts().get(1).contains("public void testNoParamMethod()"));
+        assertTrue(patch.methodTexts().get(2).contains("public void testReturnMethod(String str"));
+        assertEquals(List.of(obsoleteTest), patch.outdatedTests());
+    }
+
+    @Test
+    void testPrepareUpdateRegeneratesDeletedIndexedTests() {
+        //region Индекс сгенерированных тестов проекта
+        GeneratedTestsIndex index = new GeneratedTestsIndex();
+        Project project = mock(Project.class);
+        when(project.getService(GeneratedTestsIndex.class)).thenReturn(index);
+        when(this.mockPsiClass.getProject()).thenReturn(project);
+        VirtualFile sourceFile = mock(VirtualFile.class);
+        when(sourceFile.getUrl()).thenReturn("file:///project/src/Car.java");
+        when(this.mockPsiFile.getVirtualFile()).thenReturn(sourceFile);
+        for (PsiMethod method : this.mockPsiClass.getMethods()) {
+            MethodSignature signature = method.getSignature(PsiSubstitutor.EMPTY);
+            when(signature.getName()).thenReturn(method.getName());
+            when(signature.getParameterTypes()).thenReturn(PsiType.EMPTY_ARRAY);
+        }
+        //endregion
+        PsiClass testClass = mock(PsiClass.class);
+        when(testClass.getName()).thenReturn("CarTests");
+        when(testClass.getMethods()).thenReturn(new PsiMethod[]{});
+        when(testClass.findMethodsByName(anyString(), anyBoolean())).thenReturn(PsiMethod.EMPTY_ARRAY);
+        index.put("file:///project/src/Car.java",
+                this.generator.prepareUpdate(testClass, this.mockPsiClass, null, TestType.PARAMETERIZED).indexEntries());
+
+        // Все тесты есть в индексе, но в классе остался только тест noParamMethod
+        PsiMethod noParamTest = createPsiMethod(PsiType.VOID, "testNoParamMethod", null);
+        when(testClass.findMethodsByName("testNoParamMethod", false)).thenReturn(new PsiMethod[]{noParamTest});
+        this.generator.getMetrics().reset();
+        TestClassPatch patch = this.generator.prepareUpdate(testClass, this.mockPsiClass, null, TestType.PARAMETERIZED);
+        assertEquals(3, patch.methodTexts().size());
+        assertTrue(patch.methodTexts().stream().noneMatch(text -> text.contains("testNoParamMethod")));
+        // Модель метода, найденного по индексу, не строится
+        assertEquals(3, this.generator.getMetrics().get(GenerationMetrics.Counter.METHODS));
+    }
+
+    @Test
+    void testPrepareHierarchy() {
+        //region Базовый класс Vehicle, методы voidMethod и returnMethod переопределяются в Car
+        PsiClass baseClass = mock(PsiClass.class);
+        when(baseClass.getName()).thenReturn("Vehicle");
+        when(baseClass.getContainingFile()).thenReturn(this.mockPsiFile);
+        when(baseClass.getMethods()).thenReturn(new PsiMethod[]{this.mockVoidMethod, this.mockReturnMethod});
+        when(baseClass.getConstructors()).thenReturn(new PsiMethod[]{});
+        when(baseClass.getFields()).thenReturn(new PsiField[]{});
+        when(this.mockConstructor.isConstructor()).thenReturn(true);
+        when(this.mockVoidMethod.findSuperMethods(baseClass)).thenReturn(new PsiMethod[]{this.mockVoidMethod});
+        when(this.mockReturnMethod.findSuperMethods(baseClass)).thenReturn(new PsiMethod[]{this.mockReturnMethod});
+        when(this.mockNoParamMethod.findSuperMethods(baseClass)).thenReturn(new PsiMethod[]{});
+        //endregion
+
+        List<GenerationResult> results = this.generator.prepareHierarchy(baseClass, List.of(this.mockPsiClass), TestType.PARAMETERIZED);
+        assertEquals(2, results.size());
+        String baseTest = ((GeneratedTestFile) results.get(0)).content();
+        assertTrue(baseTest.contains("public abstract class VehicleTests {"));
+        assertTrue(baseTest.contains("protected abstract Vehicle createInstance();"));
+        assertTrue(baseTest.contains("public void testVoidMethod(") && baseTest.contains("public void testReturnMethod("));
+        // Общие тесты не дублируются в тесте реализации, собственные методы вызываются через приведение типа
+        String carTest = ((GeneratedTestFile) results.get(1)).content();
+        assertTrue(carTest.contains("class CarTests extends VehicleTests {"));
+        assertTrue(carTest.contains("return new Car("));
+        assertTrue(carTest.contains("((Car) vehicle).noParamMethod()"));
+        assertFalse(carTest.contains("testVoidMethod") || carTest.contains("testReturnMethod"));
+        // Параллельное выполнение задается в общем тесте и наследуется тестами реализаций
+        assertTrue(baseTest.contains("@Execution(ExecutionMode.CONCURRENT)\npublic abstract class VehicleTests {"));
+        assertFalse(carTest.contains("@Execution"));
+        assertTrue(((GeneratedTestFile) results.get(0)).concurrent());
+    }
+
+    @SuppressWarnings({"UnstableApiUsage", "deprecation"})
+    @Test
+    void testSharedStateDisablesConcurrentExecution() {
+        assertTrue(this.generator.createModel(this.mockPsiClass, false).concurrent());
+        assertTrue(this.generator.generate(this.mockPsiClass, TestType.UNIT).contains("@Execution(ExecutionMode.CONCURRENT)\nclass CarTests {"));
+
+        // Статическое изменяемое поле разделяется всеми тестами
+        PsiField counter = mock(PsiField.class);
+        when(counter.getType()).thenReturn(PsiType.INT);
+        when(counter.hasModifierProperty(PsiModifier.STATIC)).thenReturn(true);
+        when(this.mockPsiClass.getFields()).thenReturn(new PsiField[]{counter});
+        assertFalse(this.generator.createModel(this.mockPsiClass, false).concurrent());
+        String test = this.generator.generate(this.mockPsiClass, TestType.UNIT);
+        assertFalse(test.contains("@Execution") || test.contains("org.junit.jupiter.api.parallel"));
+
+        // Статическая константа не мешает параллельному выполнению, статическая коллекция - мешает
+        when(counter.hasModifierProperty(PsiModifier.FINAL)).thenReturn(true);
+        assertTrue(this.generator.createModel(this.mockPsiClass, false).concurrent());
+        PsiType map = mock(PsiType.class);
+        when(map.getPresentableText()).thenReturn("Map<String, Integer>");
+        when(counter.getType()).thenReturn(map);
+        assertFalse(this.generator.createModel(this.mockPsiClass, false).concurrent());
+
+        // Синхронизированный метод
+        when(counter.hasModifierProperty(PsiModifier.STATIC)).thenReturn(false);
+        when(this.mockVoidMethod.hasModifierProperty(PsiModifier.SYNCHRONIZED)).thenReturn(true);
+        assertFalse(this.generator.createModel(this.mockPsiClass, false).concurrent());
+    }
+
+    @SuppressWarnings("deprecation")
+    @Test
+    void testSharedFixture() {
+        // Объект с изменяемым полем создается перед каждым тестом
+        assertFalse(this.generator.createModel(this.mockPsiClass, false).sharedFixture());
+        assertTrue(this.generator.generate(this.mockPsiClass, TestType.UNIT).contains("@BeforeEach\nvoid setUp() {"));
+
+        // Неизменяемый объект создается один раз и используется параллельно выполняемыми тестами
+        when(this.mockPsiField.hasModifierProperty(PsiModifier.FINAL)).thenReturn(true);
+        when(this.mockPsiField.getType()).thenReturn(PsiType.INT);
+        String test = this.generator.generate(this.mockPsiClass, TestType.UNIT);
+        assertTrue(test.contains("@Execution(ExecutionMode.CONCURRENT)\n@TestInstance(TestInstance.Lifecycle.PER_CLASS)\nclass CarTests {"));
+        assertTrue(test.contains("@BeforeAll\nvoid setUp() {"));
+
+        // Поле final изменяемого типа (коллекция, массив) не делает объект неизменяемым
+        PsiClassType list = mock(PsiClassType.class);
+        when(list.getPresentableText()).thenReturn("List<String>");
+        when(this.mockPsiField.getType()).thenReturn(list);
+        assertFalse(this.generator.createModel(this.mockPsiClass, false).sharedFixture());
+        when(this.mockPsiField.getType()).thenReturn(PsiType.INT.createArrayType());
+        assertFalse(this.generator.createModel(this.mockPsiClass, false).sharedFixture());
 
+        // Выбирается самый дешевый доступный конструктор: приватный конструктор без параметров недоступен
+        when(this.mockPsiField.hasModifierProperty(PsiModifier.FINAL)).thenReturn(false);
+        PsiMethod privateConstructor = createPsiMethod(null, "Car", null);
+        when(privateConstructor.hasModifierProperty(PsiModifier.PRIVATE)).thenReturn(true);
+        PsiType path = mock(PsiType.class);
+        when(path.getPresentableText()).thenReturn("Path");
+        when(path.getCanonicalText()).thenReturn("java.nio.file.Path");
+        PsiMethod pathConstructor = createPsiMethod(null, "Car", new PsiParameter[]{createPsiParameter(path, "file")});
+        when(this.mockPsiClass.getConstructors()).thenReturn(new PsiMethod[]{privateConstructor, this.mockConstructor, pathConstructor});
+        ClassModel model = this.generator.createModel(this.mockPsiClass, false);
+        assertEquals(1, model.constructor().parameters().size());
+
+        // Дорогой изменяемый объект создается один раз, поэтому тесты выполняются последовательно
+        assertTrue(model.sharedFixture());
+        assertFalse(model.concurrent());
+    }
+
+    @Test
+    void testGenerateBenchmark() {
+        String benchmark = this.generator.generate(this.mockPsiClass, TestType.BENCHMARK);
+        assertTrue(benchmark.contains("@State(Scope.Benchmark)"));
+        assertTrue(benchmark.contains("public class CarBenchmark {"));
+        // Объект и аргументы методов создаются в @Setup, а не в теле бенчмарка
+        assertTrue(benchmark.contains("@Setup\npublic void setUp() {\n\tthis.car = new Car(\"exampleString\", \"exampleString\", 0, 0.0);"));
+        assertTrue(benchmark.contains("\tthis.returnMethodB = (byte) 0;\n"));
+        assertTrue(benchmark.contains("public void newCar(Blackhole blackhole) {\n"
+                                      + "\tblackhole.consume(new Car(this.newCarBrand, this.newCarModel, this.newCarYear, this.newCarPrice));"));
+        assertTrue(benchmark.contains("public void noParamMethod(Blackhole blackhole) {\n\tblackhole.consume(this.car.noParamMethod());"));
+        // Результат void-метода не передается в Blackhole
+        assertTrue(benchmark.contains("public void voidMethod() {\n\tthis.car.voidMethod(this.voidMethodStr, "));
+        assertFalse(benchmark.contains("@Test"));
+    }
+
+    @Test
+    void testGenerateAllMethodsCovered() throws IOException {
+        String report = "<report name=\"cars\"><package name=\"org/example\"><class name=\"org/example/Car\" sourcefilename=\"Car.java\">"
+                        + "<method name=\"park\" desc=\"()V\" line=\"1\"><counter type=\"INSTRUCTION\" missed=\"0\" covered=\"4\"/></method>"
+                        + "</class></package></report>";
+        this.generator.setCoverageReport(CoverageReport.parse(new ByteArrayInputStream(report.getBytes(StandardCharsets.UTF_8))));
+        when(this.mockPsiClass.getQualifiedName()).thenReturn("org.example.Car");
+        when(this.mockPsiClass.getMethods()).thenReturn(new PsiMethod[]{this.createPsiMethod(null, "park", null)});
+        // Все методы покрыты по отчету: результат не подготавливается, и записывать нечего
+        assertNull(this.generator.prepare(this.mockPsiClass, this.mockPsiDirectory, TestType.UNIT));
+        assertDoesNotThrow(() -> this.generator.generate(mock(Project.class), this.mockPsiClass, this.mockPsiDirectory, TestType.UNIT));
+        assertDoesNotThrow(() -> this.generator.write(mock(Project.class), (GenerationResult) null));
+    }
+
+    @Test
+    void testCoverageOrderKeepsOverloadDataFiles() throws IOException {
+        // Вторая перегрузка хуже покрыта и идет в модели первой
+        String report = "<report name=\"cars\"><package name=\"org/example\"><class name=\"org/example/Car\" sourcefilename=\"Car.java\">"
+                        + "<method name=\"drive\" desc=\"(I)V\" line=\"1\"><counter type=\"INSTRUCTION\" missed=\"2\" covered=\"0\"/></method>"
+                        + "<method name=\"drive\" desc=\"(Z)V\" line=\"2\"><counter type=\"INSTRUCTION\" missed=\"8\" covered=\"0\"/></method>"
+                        + "</class></package></report>";
+        this.generator.setCoverageReport(CoverageReport.parse(new ByteArrayInputStream(report.getBytes(StandardCharsets.UTF_8))));
+        this.generator.setCsvFileThreshold(1);
+        when(this.mockPsiClass.getQualifiedName()).thenReturn("org.example.Car");
+        PsiMethod driveInt = this.createPsiMethod(PsiType.VOID, "drive", new PsiParameter[]{this.createPsiParameter(PsiType.INT, "speed")});
+        PsiMethod driveBoolean = this.createPsiMethod(PsiType.VOID, "drive", new PsiParameter[]{this.createPsiParameter(PsiType.BOOLEAN, "isFast")});
+        when(this.mockPsiClass.getMethods()).thenReturn(new PsiMethod[]{driveInt, driveBoolean});
+        ClassModel model = this.generator.createModel(this.mockPsiClass, true);
+        assertEquals(List.of("isFast", "speed"), model.methods().stream().map(method -> method.parameters().get(0).name()).toList());
+        assertEquals(List.of(1, 0), model.methods().stream().map(MethodModel::overloadIndex).toList());
+        // Файл данных перегрузки задается ее номером в порядке объявления, а не порядком по покрытию
+        StringBuilder sb = new StringBuilder();
+        this.generator.generate(new CodeWriter(sb), "CarTests", model, null, TestType.PARAMETERIZED, new TestDataFiles("CarTests"));
+        String test = sb.toString();
+        assertTrue(test.contains("@CsvFileSource(resources = \"CarTests_testDrive1.csv\", numLinesToSkip = 1)\npublic void testDrive(boolean isFast)"), test);
+        assertTrue(test.contains("@CsvFileSource(resources = \"CarTests_testDrive.csv\", numLinesToSkip = 1)\npublic void testDrive(int speed)"), test);
+    }
 }
@@ -6,6 +6,7 @@ import com.intellij.psi.*;
 import com.intellij.psi.util.MethodSignature;
 import org.dasxunya.diploma.constants.Constants;
 import org.dasxunya.diploma.constants.TestType;
+import org.dasxunya.diploma.constants.TimeoutMode;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -242,6 +243,77 @@ public class PsiMethodGeneratorTests extends BaseTest {
                 Constants.Strings.Extensions.txt, mockNoParamMethod, TestType.PARAMETERIZED, this.isDebug, true);
     }
     //endregion
+
+    //region Источники данных параметризованных тестов
+    @Test
+    void testGenerateMethodSource() {
+        // Строка данных voidMethod длиннее порога - данные переносятся в @MethodSource
+        this.generator.setMaxCsvWidth(10);
+        String test = this.generator.generate("car.", mockVoidMethod, TestType.PARAMETERIZED);
+        assertFalse(test.contains("@CsvSource"));
+        assertTrue(test.contains("@MethodSource(\"testVoidMethodArguments\")"));
+        assertTrue(test.contains("static java.util.stream.Stream<Arguments> testVoidMethodArguments()"));
+        assertTrue(test.contains("Arguments.of(\"exampleString\", 0, true, (byte) 0, 'a', (short) 0, 0L, 0.0f, 0.0)"));
+        assertTrue(test.contains("Arguments.of(\"\", 0, false, (byte) 1, 'Z', (short) 1, 1L, -1.0f, -1.0)"));
+    }
+
+    @Test
+    void testGenerateCsvFileSource() {
+        this.generator.setCsvFileThreshold(2);
+        TestDataFiles dataFiles = new TestDataFiles("CarTests");
+        StringBuilder sb = new StringBuilder();
+        this.generator.generate(new CodeWriter(sb), "CarTests", this.generator.createModel(mockPsiClass, false),
+                this.generator.createModel(mockVoidMethod), TestType.PARAMETERIZED, dataFiles);
+        assertTrue(sb.toString().contains("@CsvFileSource(resources = \"CarTests_testVoidMethod.csv\", numLinesToSkip = 1)"));
+        // Заголовок, строка примеров и граничные значения: пустая строка и пробел остаются в кавычках
+        String[] lines = dataFiles.getFiles().get("CarTests_testVoidMethod.csv").split("\n");
+        assertEquals(40, lines.length);
+        assertEquals("str,i,flag,b,c,s,l,f,d", lines[0]);
+        assertEquals("exampleString,0,true,0,a,0,0,0.0f,0.0", lines[1]);
+        assertEquals("\"\",0,false,1,Z,1,1,-1.0f,-1.0", lines[2]);
+        assertEquals("\" \",0,true,-1,0,-1,-1,1.4E-45,4.9E-324", lines[3]);
+    }
+
+    @Test
+    void testDataFilesOverloads() {
+        TestDataFiles dataFiles = new TestDataFiles("CarTests");
+        // Имя файла задается номером перегрузки, а не порядком добавления
+        assertEquals("CarTests_testDrive1.csv", dataFiles.add("testDrive", 1, "b"));
+        assertEquals("CarTests_testDrive.csv", dataFiles.add("testDrive", 0, "a"));
+        assertEquals(List.of("CarTests_testDrive.csv", "CarTests_testDrive1.csv"), List.copyOf(dataFiles.getFiles().keySet()));
+    }
+    //endregion
+
+    //region Бюджеты производительности
+    @Test
+    void testGenerateTimeoutAnnotation() {
+        this.generator.setTimeoutMode(TimeoutMode.ANNOTATION);
+        this.generator.setTimeoutMillis(250);
+        String test = this.generator.generate("car.", mockReturnMethod, TestType.UNIT);
+        assertTrue(test.startsWith("@Timeout(value = 250, unit = java.util.concurrent.TimeUnit.MILLISECONDS)\n@Test"), test);
+        assertFalse(test.contains("assertBudget"));
+    }
+
+    @Test
+    void testGeneratePerformanceGuard() {
+        this.generator.setTimeoutMode(TimeoutMode.PREEMPTIVE);
+        this.generator.setAllocationBudget(1024);
+        String test = this.generator.generate("car.", mockReturnMethod, TestType.PARAMETERIZED);
+        assertFalse(test.contains("@Timeout"));
+        assertTrue(test.contains("\ttestgen.PerformanceBudgets.assertBudget(\"testReturnMethod\", 1000, 1024, () -> {\n"
+                                 + "\t\tAssertions.assertTrue(car.returnMethod(str, i, flag, b, c, s, l, f, d));\n"), test);
+        // Вспомогательные методы не копируются в тестирующий класс, а записываются одним общим классом
+        StringBuilder sb = new StringBuilder();
+        this.generator.generate(new CodeWriter(sb), "CarTests", this.generator.createModel(mockPsiClass, false),
+                this.generator.createModel(mockReturnMethod), TestType.PARAMETERIZED, new TestDataFiles("CarTests"));
+        assertFalse(sb.toString().contains("private static void assertBudget"));
+        StringBuilder support = new StringBuilder();
+        this.generator.writePerformanceSupport(new CodeWriter(support));
+        assertTrue(support.toString().startsWith("package testgen;\n"), support.toString());
+        assertTrue(support.toString().contains("public final class PerformanceBudgets {"));
+        assertTrue(support.toString().contains("public static void assertBudget(String testName, long timeMillis, long allocatedBytes, Runnable body)"));
+    }
+    //endregion
     //endregion
 
 }
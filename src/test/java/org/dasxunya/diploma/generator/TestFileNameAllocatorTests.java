@@ -0,0 +1,87 @@
+package org.dasxunya.diploma.generator;
+
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiDirectory;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TestFileNameAllocatorTests {
+
+    private static final String directoryUrl = "file:///project/test/org/example";
+
+    private PsiDirectory createDirectory(String... fileNames) {
+        VirtualFile[] children = new VirtualFile[fileNames.length];
+        for (int i = 0; i < fileNames.length; i++) {
+            children[i] = mock(VirtualFile.class);
+            when(children[i].getName()).thenReturn(fileNames[i]);
+        }
+        VirtualFile virtualFile = mock(VirtualFile.class);
+        when(virtualFile.getUrl()).thenReturn(directoryUrl);
+        when(virtualFile.getChildren()).thenReturn(children);
+        PsiDirectory directory = mock(PsiDirectory.class);
+        when(directory.getVirtualFile()).thenReturn(virtualFile);
+        return directory;
+    }
+
+    @Test
+    void testAllocate() {
+        TestFileNameAllocator allocator = new TestFileNameAllocator();
+        PsiDirectory directory = this.createDirectory("CarTests.java", "CarTests1.java", "CarTests.txt");
+
+        assertEquals("CarTests2", allocator.allocate(directory, "CarTests", "java", "Car"));
+        assertEquals("CarTests3", allocator.allocate(directory, "CarTests", "java", "Car:drive(int)"));
+        assertEquals("EngineTests", allocator.allocate(directory, "EngineTests", "java", "Engine"));
+        // Файл, созданный после считывания директории, учитывается через reserve
+        allocator.reserve(directoryUrl, "BusTests.java");
+        assertEquals("BusTests1", allocator.allocate(directory, "BusTests", "java", "Bus"));
+    }
+
+    @Test
+    void testAllocateAgainAndRelease() {
+        TestFileNameAllocator allocator = new TestFileNameAllocator();
+        PsiDirectory directory = this.createDirectory("CarTests.java");
+
+        // Повторная подготовка того же элемента не занимает новое имя
+        assertEquals("CarTests1", allocator.allocate(directory, "CarTests", "java", "Car"));
+        assertEquals("CarTests1", allocator.allocate(directory, "CarTests", "java", "Car"));
+        // После создания файла резерв снимается, имя остается занятым
+        allocator.reserve(directoryUrl, "CarTests1.java");
+        assertEquals("CarTests2", allocator.allocate(directory, "CarTests", "java", "Car"));
+        // Имя удаленного файла снова свободно
+        allocator.release(directoryUrl, "CarTests.java");
+        assertEquals("CarTests", allocator.allocate(directory, "CarTests", "java", "Bus"));
+        allocator.releaseDirectory(directoryUrl);
+        assertEquals("CarTests1", allocator.allocate(directory, "CarTests", "java", "Car"));
+    }
+
+    @Test
+    void testAllocateConcurrently() throws Exception {
+        TestFileNameAllocator allocator = new TestFileNameAllocator();
+        PsiDirectory directory = this.createDirectory("CarTests.java");
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> futures = new ArrayList<>();
+            for (int i = 0; i < 400; i++) {
+                String owner = "Car" + i;
+                futures.add(executor.submit(() -> allocator.allocate(directory, "CarTests", "java", owner)));
+            }
+            Set<String> names = new HashSet<>();
+            for (Future<String> future : futures)
+                names.add(future.get());
+            assertEquals(400, names.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
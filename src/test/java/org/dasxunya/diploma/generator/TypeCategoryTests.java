@@ -0,0 +1,61 @@
+package org.dasxunya.diploma.generator;
+
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiClassType;
+import com.intellij.psi.PsiType;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class TypeCategoryTests {
+
+    @Test
+    void testOf() {
+        assertEquals(TypeCategory.INT, TypeCategory.of("int", "int"));
+        assertEquals(TypeCategory.VOID, TypeCategory.of("void", "void"));
+        assertEquals(TypeCategory.STRING, TypeCategory.of("java.lang.String", "String"));
+        // Обертки примитивов не считаются примитивами
+        assertEquals(TypeCategory.OBJECT, TypeCategory.of("java.lang.Integer", "Integer"));
+        assertEquals(TypeCategory.OBJECT, TypeCategory.of("java.util.List<java.lang.String>", "List<String>"));
+    }
+
+    @Test
+    void testExampleData() {
+        assertEquals("exampleString", TypeCategory.STRING.getExampleData(false));
+        assertEquals("\"exampleString\"", TypeCategory.STRING.getExampleData(true));
+        assertEquals("0.0f", TypeCategory.FLOAT.getExampleData(true));
+        assertTrue(TypeCategory.CHAR.isIntegral());
+        assertFalse(TypeCategory.DOUBLE.isIntegral());
+        assertTrue(TypeCategory.DOUBLE.isFloating());
+    }
+
+    @Test
+    void testCacheRendersTextOnMissOnly() {
+        TypeCategoryCache cache = new TypeCategoryCache();
+        PsiClass car = mock(PsiClass.class);
+        PsiClassType first = mock(PsiClassType.class);
+        PsiClassType second = mock(PsiClassType.class);
+        for (PsiClassType type : new PsiClassType[]{first, second}) {
+            when(type.resolve()).thenReturn(car);
+            when(type.getParameters()).thenReturn(PsiType.EMPTY_ARRAY);
+            when(type.getCanonicalText()).thenReturn("org.example.Car");
+            when(type.getPresentableText()).thenReturn("Car");
+        }
+        TypeCategoryCache.CachedType cached = cache.resolve(first);
+        assertEquals("Car", cached.presentableText());
+        assertSame(car, cached.psiClass());
+        // Другой объект того же типа находится по разрешенному классу без построения текста
+        assertSame(cached, cache.resolve(second));
+        verify(first, times(1)).getCanonicalText();
+        verify(first, times(1)).getPresentableText();
+        verify(second, times(0)).getCanonicalText();
+        verify(second, times(0)).getPresentableText();
+    }
+}
@@ -0,0 +1,56 @@
+package org.dasxunya.diploma.generator.templates;
+
+import org.dasxunya.diploma.generator.CodeWriter;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TemplateTests {
+
+    private static final String[] names = {"a", "b", "c"};
+
+    /**
+     * Область видимости с переменной body из двух строк и блоком items из трех элементов
+     */
+    private static final TemplateScope scope = new TemplateScope() {
+        @Override
+        public void writeValue(CodeWriter writer, String name) {
+            writer.print(name.equals("body") ? "first;\nsecond;\n" : name.toUpperCase());
+        }
+
+        @Override
+        public int getBlockSize(String name) {
+            return name.equals("items") ? names.length : 0;
+        }
+
+        @Override
+        public TemplateScope getBlockScope(String name, int index) {
+            return (writer, value) -> writer.print(names[index]);
+        }
+    };
+
+    private String render(String text) {
+        StringBuilder sb = new StringBuilder();
+        Template.compile("test", text).render(new CodeWriter(sb), scope);
+        return sb.toString();
+    }
+
+    @Test
+    void testValuesAndBlocks() {
+        assertEquals("call(a, b, c) NAME", this.render("call(${#items|, }${item}${/items}) ${name}\n"));
+        assertEquals("", this.render("${#missing}text${/missing}"));
+    }
+
+    @Test
+    void testStandaloneValueIndented() {
+        assertEquals("void m() {\n\tfirst;\n\tsecond;\n}", this.render("void m() {\n\t${body}\n}\n"));
+    }
+
+    @Test
+    void testSyntaxErrors() {
+        assertThrows(IllegalArgumentException.class, () -> Template.compile("test", "${#items}text"));
+        assertThrows(IllegalArgumentException.class, () -> Template.compile("test", "text${/items}"));
+        assertThrows(IllegalArgumentException.class, () -> Template.compile("test", "${name"));
+    }
+}